@@ -0,0 +1,182 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed-loop HTTP load generator used to compare the platform-thread and virtual-thread modes of the API.
+ * <p>
+ * Each simulated client sends a request, waits for the response, then sends the next one, cycling over the
+ * given paths. After a warm-up, the throughput, the error count and the latency percentiles are printed.
+ * The program has no dependency and runs from source:
+ * <pre>
+ * java benchmark/LoadBenchmark.java --url http://localhost:8080 --clients 400 --duration 30 \
+ *      --path /api/products/1 --path /api/categories/dtos
+ * </pre>
+ */
+public class LoadBenchmark {
+
+    private static final List<String> DEFAULT_PATHS = List.of(
+            "/api/products/1",
+            "/api/products/1/details",
+            "/api/products/search?q=shirt",
+            "/api/categories/dtos",
+            "/api/brands/names-with-counts");
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int clients = 200;
+        int warmup = 10;
+        int duration = 30;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--duration" -> duration = Integer.parseInt(value);
+                case "--path" -> paths.add(value);
+                default -> {
+                    System.err.println("Usage: LoadBenchmark [--url URL] [--clients N] [--warmup SECONDS]"
+                            + " [--duration SECONDS] [--path PATH]...");
+                    System.exit(2);
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.addAll(DEFAULT_PATHS);
+        }
+        List<URI> uris = new ArrayList<>();
+        for (String path : paths) {
+            uris.add(URI.create(url + path));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        System.out.printf("Warming up %d clients for %d s...%n", clients, warmup);
+        run(client, uris, clients, warmup);
+        System.out.printf("Measuring %d clients for %d s...%n", clients, duration);
+        Result result = run(client, uris, clients, duration);
+        result.print(duration);
+    }
+
+    private static Result run(HttpClient client, List<URI> uris, int clients, int seconds) throws InterruptedException {
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Worker[] workers = new Worker[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                Worker worker = new Worker(client, uris, i, end, done);
+                workers[i] = worker;
+                executor.execute(worker);
+            }
+            done.await();
+        }
+        return Result.merge(workers);
+    }
+
+    /**
+     * One simulated client, recording the latency of each of its requests.
+     */
+    private static final class Worker implements Runnable {
+        private final HttpClient client;
+        private final List<URI> uris;
+        private final long end;
+        private final CountDownLatch done;
+        private int next;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Worker(HttpClient client, List<URI> uris, int offset, long end, CountDownLatch done) {
+            this.client = client;
+            this.uris = uris;
+            this.next = offset;
+            this.end = end;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < end) {
+                    URI uri = uris.get(next++ % uris.size());
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Accept", "application/json")
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors++;
+                        }
+                    } catch (Exception e) {
+                        errors++;
+                    }
+                    record(System.nanoTime() - start);
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    /**
+     * The latencies and errors of all the clients of a run.
+     */
+    private record Result(long[] latencies, long errors) {
+
+        private static Result merge(Worker[] workers) {
+            int total = 0;
+            long errors = 0;
+            for (Worker worker : workers) {
+                total += worker.count;
+                errors += worker.errors;
+            }
+            long[] latencies = new long[total];
+            int offset = 0;
+            for (Worker worker : workers) {
+                System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+                offset += worker.count;
+            }
+            Arrays.sort(latencies);
+            return new Result(latencies, errors);
+        }
+
+        private void print(int seconds) {
+            System.out.printf("requests    %d (%d errors)%n", latencies.length, errors);
+            System.out.printf("throughput  %.1f req/s%n", latencies.length / (double) seconds);
+            System.out.printf("p50         %.2f ms%n", percentile(0.50));
+            System.out.printf("p99         %.2f ms%n", percentile(0.99));
+            System.out.printf("p99.9       %.2f ms%n", percentile(0.999));
+            System.out.printf("max         %.2f ms%n", percentile(1.0));
+        }
+
+        private double percentile(double rank) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(rank * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares the throughput and latency of the API on platform threads and on virtual threads.
+#
+# The application is packaged once, then started twice on the same database: first with the default
+# Tomcat thread pool, then with the "virtual" profile. LoadBenchmark runs against each in turn. Admission
+# control is turned off in both runs: its per-address buckets would reject the clients of LoadBenchmark,
+# which all come from the same address.
+#
+#   benchmark/compare.sh [LoadBenchmark options...]
+#
+# Environment:
+#   APP_ARGS  extra arguments passed to the application, for instance another datasource
+#   PORT      the HTTP port of the application (default 8080)
+#
+# To reproduce a slow database, put a latency proxy such as toxiproxy between the application and MySQL
+# and point spring.datasource.url at it through APP_ARGS.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT="${PORT:-8080}"
+LOG_DIR="target/benchmark"
+mkdir -p "$LOG_DIR"
+
+sh ./mvnw -B -q package -DskipTests
+JAR="$(ls target/tshirtshop-*.jar | grep -v original | head -n 1)"
+
+run_mode() {
+    local mode="$1"
+    shift
+    echo "=== $mode ==="
+    java "$@" -jar "$JAR" --server.port="$PORT" --tshirtshop.admission.enabled=false ${APP_ARGS:-} \
+        > "$LOG_DIR/$mode.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    for _ in $(seq 1 120); do
+        curl -s -o /dev/null "http://localhost:$PORT/api/brands" && break
+        sleep 1
+    done
+    java benchmark/LoadBenchmark.java --url "http://localhost:$PORT" "${BENCHMARK_ARGS[@]}"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+BENCHMARK_ARGS=("$@")
+run_mode platform
+run_mode virtual -Djdk.tracePinnedThreads=short -Dspring.profiles.active=virtual
+
+echo "Application logs, including the pinned virtual threads, are in $LOG_DIR"
@@ -0,0 +1,102 @@
+package be.eafcuccle.tshirtshop.benchmark;
+
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.models.Size;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import org.springframework.data.domain.PageRequest;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic catalog data shared by the benchmarks, built in memory or as an NDJSON import stream.
+ */
+final class CatalogFixtures {
+
+    static final String[] CATEGORY_NAMES = {"Hommes", "Femmes", "Enfants"};
+    static final String[] BRAND_NAMES = {"Nike", "Adidas", "Jack & Jones"};
+    private static final String[] COLORS = {"Blanc", "Noir", "Rouge", "Bleu", "Vert"};
+    private static final String[] NAMES = {"T-Shirt simple", "T-Shirt V", "Polo", "Débardeur", "T-Shirt long"};
+
+    private CatalogFixtures() {}
+
+    /**
+     * Builds an in-memory catalog of the given number of products, spread over the categories and brands,
+     * with IDs assigned as if they had been saved.
+     *
+     * @param size the number of products
+     * @return the products, each linked to its category and brand
+     */
+    static List<Product> products(int size) {
+        List<Category> categories = new ArrayList<>();
+        for (String name : CATEGORY_NAMES) {
+            categories.add(new Category(name));
+        }
+        List<Brand> brands = new ArrayList<>();
+        for (int i = 0; i < BRAND_NAMES.length; i++) {
+            Brand brand = new Brand(BRAND_NAMES[i]);
+            brand.setId(i + 1);
+            brands.add(brand);
+        }
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Category category = categories.get(i % categories.size());
+            Product product = new Product(name(i), "Un t-shirt de coton numéro " + i, price(random), random.nextInt(100),
+                    COLORS[random.nextInt(COLORS.length)], category, brands.get(random.nextInt(brands.size())),
+                    Size.values()[random.nextInt(Size.values().length)]);
+            product.setProductId(i + 1);
+            category.getProducts().add(product);
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Builds an NDJSON stream importing the given number of products into the categories and brands
+     * created when the application starts.
+     *
+     * @param size the number of products
+     * @return the stream content
+     */
+    static byte[] importStream(int size) {
+        Random random = new Random(42);
+        StringBuilder ndjson = new StringBuilder(size * 200);
+        for (int i = 0; i < size; i++) {
+            ndjson.append("{\"name\":\"").append(name(i))
+                    .append("\",\"description\":\"Un t-shirt de coton numéro ").append(i)
+                    .append("\",\"price\":").append(price(random))
+                    .append(",\"stock\":").append(random.nextInt(100))
+                    .append(",\"color\":\"").append(COLORS[random.nextInt(COLORS.length)])
+                    .append("\",\"category\":\"").append(CATEGORY_NAMES[i % CATEGORY_NAMES.length])
+                    .append("\",\"brand\":\"").append(BRAND_NAMES[random.nextInt(BRAND_NAMES.length)])
+                    .append("\",\"size\":\"").append(Size.values()[random.nextInt(Size.values().length)])
+                    .append("\"}\n");
+        }
+        return ndjson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads back the IDs of the products in the database once the stream is imported. The IDs are not
+     * 1 to the catalog size: the sequence hands them out in pooled blocks, after those of the seeded products.
+     *
+     * @param productRepository the repository of the imported products
+     * @return the IDs of every product, in ascending order
+     */
+    static int[] productIds(ProductRepository productRepository) {
+        return productRepository.findByProductIdGreaterThanOrderByProductIdAsc(0, PageRequest.ofSize(Integer.MAX_VALUE))
+                .stream().mapToInt(Product::getProductId).toArray();
+    }
+
+    private static String name(int i) {
+        return NAMES[i % NAMES.length] + " " + i;
+    }
+
+    private static BigDecimal price(Random random) {
+        return BigDecimal.valueOf(500 + random.nextInt(6000), 2);
+    }
+}
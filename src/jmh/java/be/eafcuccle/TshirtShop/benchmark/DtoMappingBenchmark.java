@@ -0,0 +1,63 @@
+package be.eafcuccle.tshirtshop.benchmark;
+
+import be.eafcuccle.tshirtshop.dto.CategoryDTO;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the listing DTOs, from loaded entities and from the values of a projection query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"50", "1000"})
+    private int pageSize;
+
+    private List<Product> products;
+    private List<Category> categories;
+
+    @Setup
+    public void setUp() {
+        products = CatalogFixtures.products(pageSize);
+        categories = new ArrayList<>(new LinkedHashSet<>(products.stream().map(Product::getCategory).toList()));
+    }
+
+    @Benchmark
+    public List<ProductDTO> productDtosFromEntities() {
+        List<ProductDTO> dtos = new ArrayList<>(products.size());
+        for (Product product : products) {
+            dtos.add(new ProductDTO(product));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<ProductDTO> productDtosFromProjection() {
+        List<ProductDTO> dtos = new ArrayList<>(products.size());
+        for (Product product : products) {
+            dtos.add(new ProductDTO(product.getProductId(), product.getProductName(), product.getUnitPriceCents(),
+                    product.getCategory().getName()));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<CategoryDTO> categoryDtos() {
+        List<CategoryDTO> dtos = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            dtos.add(new CategoryDTO(category));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,71 @@
+package be.eafcuccle.tshirtshop.benchmark;
+
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing the entity graphs returned by the API, with an ObjectMapper configured
+ * like the one of Spring MVC. A category is serialized with all its products, as {@code GET /api/categories} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    private int catalogSize;
+
+    private ObjectMapper objectMapper;
+    private Product product;
+    private List<Product> products;
+    private List<ProductDTO> productDtos;
+    private Category category;
+    private List<Brand> brands;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        products = CatalogFixtures.products(catalogSize);
+        product = products.get(0);
+        productDtos = products.stream().map(ProductDTO::new).toList();
+        category = product.getCategory();
+        brands = List.copyOf(new LinkedHashSet<>(products.stream().map(Product::getBrand).toList()));
+    }
+
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] productList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productDtoList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productDtos);
+    }
+
+    @Benchmark
+    public byte[] categoryWithProducts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(category);
+    }
+
+    @Benchmark
+    public byte[] brands() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(brands);
+    }
+}
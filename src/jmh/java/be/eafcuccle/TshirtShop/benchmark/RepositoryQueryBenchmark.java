@@ -0,0 +1,118 @@
+package be.eafcuccle.tshirtshop.benchmark;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import be.eafcuccle.tshirtshop.service.ProductImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@link ProductRepository} queries against an embedded H2 database in MySQL mode.
+ * <p>
+ * Each trial starts the application without its web server on a fresh database and imports
+ * {@code catalogSize} products through the {@link ProductImportService}, so the schema, the indexes
+ * and the Hibernate settings are those of the application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryQueryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private String categoryId;
+    private int[] productIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // DevTools would restart the application in another class loader, read before any argument is parsed.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(TshirtShopApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:jmh-" + catalogSize + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn");
+        productRepository = context.getBean(ProductRepository.class);
+        context.getBean(ProductImportService.class).importProducts(
+                new ByteArrayInputStream(CatalogFixtures.importStream(catalogSize)), ProductImportService.Format.NDJSON);
+        productIds = CatalogFixtures.productIds(productRepository);
+        Category category = context.getBean(CategoryRepository.class).findByName(CatalogFixtures.CATEGORY_NAMES[0])
+                .orElseThrow();
+        categoryId = category.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return productRepository.findById(randomProductId());
+    }
+
+    @Benchmark
+    public Optional<Product> findDetailedProductById() {
+        return productRepository.findDetailedProductById(randomProductId());
+    }
+
+    @Benchmark
+    public List<Product> findByProductNameContainingIgnoreCase() {
+        return productRepository.findByProductNameContainingIgnoreCase("polo 1");
+    }
+
+    @Benchmark
+    public List<Product> findProductsByUnitPriceCentsBetween() {
+        return productRepository.findProductsByUnitPriceCentsBetween(2000, 2100);
+    }
+
+    @Benchmark
+    public List<Product> findByCategoryName() {
+        return productRepository.findByCategoryName(CatalogFixtures.CATEGORY_NAMES[1]);
+    }
+
+    @Benchmark
+    public List<Product> findByBrandName() {
+        return productRepository.findByBrandName(CatalogFixtures.BRAND_NAMES[2]);
+    }
+
+    @Benchmark
+    public List<Product> productPage() {
+        return productRepository.findByProductIdGreaterThanOrderByProductIdAsc(randomProductId(),
+                PageRequest.ofSize(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ProductDTO> categoryDtoPage() {
+        return productRepository.findDTOPageByCategoryId(categoryId, randomProductId(), PageRequest.ofSize(PAGE_SIZE));
+    }
+
+    private int randomProductId() {
+        return productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+    }
+}
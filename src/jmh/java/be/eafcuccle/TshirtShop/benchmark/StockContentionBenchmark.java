@@ -0,0 +1,109 @@
+package be.eafcuccle.tshirtshop.benchmark;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import be.eafcuccle.tshirtshop.dto.StockItem;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import be.eafcuccle.tshirtshop.service.InsufficientStockException;
+import be.eafcuccle.tshirtshop.service.ProductImportService;
+import be.eafcuccle.tshirtshop.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link StockService} when many threads change the stock of the same product, against an
+ * embedded H2 database in MySQL mode.
+ * <p>
+ * Every change is a conditional {@code UPDATE} holding the row lock of the product until its transaction
+ * commits, so the threads of a group queue on that single row. The {@code hotProduct} group reserves and
+ * releases one unit of the hot product on separate threads; the {@code hotBasket} group reserves baskets made
+ * of the hot product and a random other one, locked in ascending ID order. Every product is given a stock
+ * large enough for the reservations never to be refused. Each group runs 16 threads; change the count of one
+ * group with {@code -tg}, for instance:
+ * <pre>
+ * ./mvnw -Pjmh compile exec:exec -Djmh.args="StockContentionBenchmark.hotProduct -tg 32,32"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockContentionBenchmark {
+
+    private static final int CATALOG_SIZE = 1000;
+    private static final int STOCK = 100_000_000;
+
+    private ConfigurableApplicationContext context;
+    private StockService stockService;
+    private int hotProductId;
+    private int[] otherProductIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(TshirtShopApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:jmh-stock;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn");
+        context.getBean(ProductImportService.class).importProducts(
+                new ByteArrayInputStream(CatalogFixtures.importStream(CATALOG_SIZE)), ProductImportService.Format.NDJSON);
+        int[] productIds = CatalogFixtures.productIds(context.getBean(ProductRepository.class));
+        hotProductId = productIds[0];
+        otherProductIds = Arrays.copyOfRange(productIds, 1, productIds.length);
+        stockService = context.getBean(StockService.class);
+        for (int productId : productIds) {
+            stockService.adjust(productId, STOCK);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("hotProduct")
+    @GroupThreads(8)
+    public Optional<Integer> reserve() {
+        try {
+            return stockService.reserve(hotProductId, 1);
+        } catch (InsufficientStockException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Benchmark
+    @Group("hotProduct")
+    @GroupThreads(8)
+    public Optional<Integer> release() {
+        return stockService.release(hotProductId, 1);
+    }
+
+    @Benchmark
+    @Group("hotBasket")
+    @GroupThreads(16)
+    public Map<Integer, Integer> reserveBasket() {
+        int other = otherProductIds[ThreadLocalRandom.current().nextInt(otherProductIds.length)];
+        try {
+            return stockService.reserveAll(List.of(new StockItem(other, 1), new StockItem(hotProductId, 1)));
+        } catch (InsufficientStockException e) {
+            return Map.of();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package be.eafcuccle.tshirtshop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * The main entry point for the T-shirt Shop application.
@@ -10,12 +11,21 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class TshirtShopApplication {
 
+    /**
+     * The number of startup steps recorded for the {@code startup} actuator endpoint.
+     */
+    private static final int STARTUP_STEPS = 4096;
+
     /**
      * The main method which starts the Spring Boot application.
+     * The startup steps, such as the creation of each bean, are recorded with their duration
+     * and exposed by the {@code startup} actuator endpoint.
      *
      * @param args command-line arguments passed to the application
      */
     public static void main(String[] args) {
-        SpringApplication.run(TshirtShopApplication.class, args);
+        SpringApplication application = new SpringApplication(TshirtShopApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
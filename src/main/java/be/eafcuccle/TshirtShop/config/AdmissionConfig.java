@@ -0,0 +1,272 @@
+package be.eafcuccle.tshirtshop.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits or rejects the API requests before their controller runs, so a single client cannot take the
+ * connection pool from the others.
+ * <p>
+ * Each request pays a cost in tokens, 1 unless {@code tshirtshop.admission.route-costs} gives its route a higher
+ * one, such as the unpaged lists and the imports. It is paid twice: to the bucket of its client, identified by
+ * its remote address (behind a proxy, set {@code server.forward-headers-strategy}), and to the bucket of its
+ * route, shared by all the clients. The client buckets are kept in a Caffeine cache and dropped once idle.
+ * The handlers that use the database then need one of {@code tshirtshop.admission.max-concurrent} permits,
+ * sized like the connection pool. A request waits for a permit at most {@code queue-timeout}, and only while
+ * fewer than {@code max-queued} requests are already waiting, instead of piling up on the pool until its
+ * connection timeout. A request refused at any step gets HTTP status 429 Too Many Requests at once, with a
+ * {@code Retry-After} of when its bucket will hold enough tokens, or {@code busy-retry-after} for the permits.
+ * <p>
+ * The rejections are counted in {@code tshirtshop.admission.rejected}, tagged by reason and route, the waits
+ * for a permit are timed in {@code tshirtshop.admission.queue}, and gauges show the requests holding or
+ * waiting for a permit and the number of client buckets.
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionConfig.class.getName() + ".permit";
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double clientRate;
+    private final double clientBurst;
+    private final double routeRate;
+    private final double routeBurst;
+    private final Map<String, Integer> routeCosts;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Map<String, TokenBucket> routeBuckets = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final long queueTimeoutNanos;
+    private final long busyRetryAfterSeconds;
+    private final Timer admittedWait;
+    private final Timer rejectedWait;
+
+    /**
+     * Constructs the AdmissionConfig and registers its gauges.
+     *
+     * @param meterRegistry  the registry of the admission meters
+     * @param enabled        whether the requests are limited at all
+     * @param clientRate     the tokens per second refilled in the bucket of each client
+     * @param clientBurst    the capacity of the bucket of each client
+     * @param routeRate      the tokens per second refilled in the bucket of each route
+     * @param routeBurst     the capacity of the bucket of each route
+     * @param routeCosts     the costs of the routes, as {@code METHOD pattern=cost} entries
+     * @param clientIdle     how long the bucket of an idle client is kept
+     * @param maxClients     the maximum number of client buckets kept
+     * @param maxConcurrent  the number of requests running database-bound handlers at the same time
+     * @param maxQueued      the number of requests waiting for a permit at the same time
+     * @param queueTimeout   how long a request waits for a permit
+     * @param busyRetryAfter the {@code Retry-After} of the requests refused a permit
+     */
+    public AdmissionConfig(MeterRegistry meterRegistry,
+                           @Value("${tshirtshop.admission.enabled:true}") boolean enabled,
+                           @Value("${tshirtshop.admission.client-rate:20}") double clientRate,
+                           @Value("${tshirtshop.admission.client-burst:100}") double clientBurst,
+                           @Value("${tshirtshop.admission.route-rate:500}") double routeRate,
+                           @Value("${tshirtshop.admission.route-burst:1000}") double routeBurst,
+                           @Value("${tshirtshop.admission.route-costs:}") List<String> routeCosts,
+                           @Value("${tshirtshop.admission.client-idle-timeout:PT10M}") Duration clientIdle,
+                           @Value("${tshirtshop.admission.max-clients:100000}") long maxClients,
+                           @Value("${tshirtshop.admission.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+                           @Value("${tshirtshop.admission.max-queued:20}") int maxQueued,
+                           @Value("${tshirtshop.admission.queue-timeout:PT0.1S}") Duration queueTimeout,
+                           @Value("${tshirtshop.admission.busy-retry-after:PT1S}") Duration busyRetryAfter) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.routeRate = routeRate;
+        this.routeBurst = routeBurst;
+        this.routeCosts = parseRouteCosts(routeCosts);
+        this.clientBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(clientIdle)
+                .maximumSize(maxClients)
+                .build();
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxQueued = maxQueued;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.busyRetryAfterSeconds = Math.max(1, busyRetryAfter.toSeconds());
+        this.admittedWait = queueTimer("admitted");
+        this.rejectedWait = queueTimer("rejected");
+        Gauge.builder("tshirtshop.admission.active", permits, available -> maxConcurrent - available.availablePermits())
+                .description("Requests running a database-bound handler")
+                .register(meterRegistry);
+        Gauge.builder("tshirtshop.admission.queued", queued, AtomicInteger::get)
+                .description("Requests waiting to run a database-bound handler")
+                .register(meterRegistry);
+        Gauge.builder("tshirtshop.admission.clients", clientBuckets, Cache::estimatedSize)
+                .description("Clients holding a token bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                    return true;
+                }
+                String route = route(request);
+                int cost = routeCosts.getOrDefault(route, 1);
+                long now = System.nanoTime();
+                TokenBucket client = clientBuckets.get(request.getRemoteAddr(),
+                        address -> new TokenBucket(clientBurst, clientRate, now));
+                long wait = client.tryTake(cost, now);
+                if (wait > 0) {
+                    return reject(response, route, "client", toRetryAfterSeconds(wait));
+                }
+                TokenBucket shared = routeBuckets.computeIfAbsent(route, key -> new TokenBucket(routeBurst, routeRate, now));
+                wait = shared.tryTake(cost, now);
+                if (wait > 0) {
+                    client.giveBack(cost);
+                    return reject(response, route, "route", toRetryAfterSeconds(wait));
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/**").order(Ordered.HIGHEST_PRECEDENCE);
+
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                    throws InterruptedException {
+                if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                    return true;
+                }
+                if (!acquirePermit()) {
+                    return reject(response, route(request), "concurrency", busyRetryAfterSeconds);
+                }
+                request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                releasePermit(request);
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                releasePermit(request);
+            }
+        }).addPathPatterns("/api/**")
+                .excludePathPatterns("/api/products/image/**", "/api/caches/**", "/api/catalog/changes")
+                .order(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+
+    /**
+     * Takes a permit at once if one is free, otherwise waits for one if the queue is not full.
+     */
+    private boolean acquirePermit() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            admittedWait.record(0, TimeUnit.NANOSECONDS);
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejectedWait.record(0, TimeUnit.NANOSECONDS);
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+            (acquired ? admittedWait : rejectedWait).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return acquired;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private void releasePermit(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    private boolean reject(HttpServletResponse response, String route, String reason, long retryAfterSeconds) {
+        Counter.builder("tshirtshop.admission.rejected")
+                .description("Requests refused with HTTP status 429 Too Many Requests")
+                .tag("reason", reason)
+                .tag("uri", route)
+                .register(meterRegistry)
+                .increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return false;
+    }
+
+    private Timer queueTimer(String outcome) {
+        return Timer.builder("tshirtshop.admission.queue")
+                .description("Time waited for a permit to run a database-bound handler")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the route of a request, as its method and the pattern of its handler; HEAD is priced like GET.
+     */
+    private static String route(HttpServletRequest request) {
+        String method = "HEAD".equals(request.getMethod()) ? "GET" : request.getMethod();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return method + " " + (pattern == null ? "UNKNOWN" : pattern);
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
+    private static Map<String, Integer> parseRouteCosts(List<String> entries) {
+        Map<String, Integer> costs = new HashMap<>();
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            try {
+                int cost = Integer.parseInt(entry.substring(separator + 1).trim());
+                if (separator <= 0 || cost < 1) {
+                    throw new NumberFormatException();
+                }
+                costs.put(entry.substring(0, separator).trim().replaceAll("\\s+", " "), cost);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid route cost '" + entry + "', expected 'METHOD pattern=cost'");
+            }
+        }
+        return Map.copyOf(costs);
+    }
+}
@@ -0,0 +1,13 @@
+package be.eafcuccle.tshirtshop.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Spring cache abstraction. The caches themselves are Caffeine caches declared
+ * through the {@code spring.cache.*} properties, which set their size bound and time-to-live.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
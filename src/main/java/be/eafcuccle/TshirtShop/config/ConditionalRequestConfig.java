@@ -0,0 +1,66 @@
+package be.eafcuccle.tshirtshop.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import be.eafcuccle.tshirtshop.service.CatalogVersion;
+
+/**
+ * Answers the conditional GET requests of the catalog read endpoints from the {@link CatalogVersion}.
+ * <p>
+ * Every response is tagged with the strong {@code ETag} and the {@code Last-Modified} time of the catalog
+ * version it was computed from, read before the controller runs: a write committed meanwhile can only make
+ * the tag older than the body, which costs the client one more full download but never a stale one.
+ * A request whose {@code If-None-Match} or {@code If-Modified-Since} matches the current version is answered
+ * with HTTP status 304 Not Modified before the controller is called, so it touches neither the repositories
+ * nor the in-memory indexes. A version created in the same second as the previous one is only matched by its
+ * {@code ETag} and sent without {@code Last-Modified}. A request routed to the read replicas by the
+ * {@link DataSourceConfig} is tagged with the version they have applied instead, found in the
+ * {@link #STAMP_ATTRIBUTE} request attribute. {@code Cache-Control: no-cache} makes browsers revalidate on every use.
+ * The product images have their own, per-file validators and are left out.
+ */
+@Configuration
+public class ConditionalRequestConfig implements WebMvcConfigurer {
+
+    /**
+     * The request attribute holding the {@link CatalogVersion.Stamp} the response is tagged with, when it is not
+     * the current one.
+     */
+    public static final String STAMP_ATTRIBUTE = ConditionalRequestConfig.class.getName() + ".STAMP";
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * Constructs the ConditionalRequestConfig with the version the responses are tagged with.
+     *
+     * @param catalogVersion the catalog version
+     */
+    public ConditionalRequestConfig(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+                    return true;
+                }
+                CatalogVersion.Stamp stamp = request.getAttribute(STAMP_ATTRIBUTE)
+                        instanceof CatalogVersion.Stamp tagged ? tagged : catalogVersion.current();
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+                return !new ServletWebRequest(request, response).checkNotModified(stamp.getETag(), stamp.getLastModified());
+            }
+        }).addPathPatterns("/api/products/**", "/api/brands/**", "/api/categories/**")
+                .excludePathPatterns("/api/products/image/**");
+    }
+}
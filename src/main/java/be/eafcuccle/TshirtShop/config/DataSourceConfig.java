@@ -0,0 +1,237 @@
+package be.eafcuccle.tshirtshop.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import be.eafcuccle.tshirtshop.service.CatalogVersion;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the database traffic between the primary and its read replicas.
+ * <p>
+ * The application data source is a {@link LazyConnectionDataSourceProxy} over the primary pool, which only
+ * fetches a connection on the first statement of a transaction, once it knows whether the transaction is
+ * read-only. Read-only connections come from the {@link ReplicaRoutingDataSource}, the others from the primary.
+ * The replicas are only allowed for the catalog GET requests; writes, background jobs and the requests of a
+ * client that changed the catalog in the last {@code tshirtshop.datasource.read-your-writes} stay on the
+ * primary, so a client always reads its own writes despite the replication lag. That client is recognized by
+ * a short-lived cookie set by each catalog write, which must outlive the replica lag, hence the
+ * {@code replica-max-lag} plus the {@code replica-check-interval}. Without replicas, every connection comes from
+ * the primary. The statements prepared on any of them are counted by a {@link QueryCountingDataSource}.
+ * <p>
+ * The other clients see the replication lag the {@link ReplicaRoutingDataSource} measures, which is bounded by
+ * {@code tshirtshop.datasource.replica-max-lag}. Their request is tagged with the newest {@link CatalogVersion}
+ * every usable replica has applied, and may only use the replicas that applied it, so a response is never
+ * tagged with a version newer than its body; a client already holding the current version is answered by the
+ * conditional-request interceptor, which runs next. What a replica returns is kept out of the Hibernate caches
+ * by the {@link ReplicaCacheModeJpaDialect}. The replica pools report the same Micrometer meters as the primary
+ * pool, tagged with their own pool names.
+ */
+@Configuration
+public class DataSourceConfig implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+    private static final String PRIMARY_COOKIE = "tshirtshop-primary";
+
+    private final CatalogVersion catalogVersion;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaDataSource;
+    private final Duration readYourWrites;
+
+    /**
+     * Constructs the DataSourceConfig.
+     *
+     * @param catalogVersion    the version of the catalog the replica reads are tagged with
+     * @param replicaDataSource the data source of the read-only connections, created by this configuration
+     * @param readYourWrites    how long a client reads from the primary after changing the catalog
+     */
+    public DataSourceConfig(CatalogVersion catalogVersion, ObjectProvider<ReplicaRoutingDataSource> replicaDataSource,
+                            @Value("${tshirtshop.datasource.read-your-writes:PT5S}") Duration readYourWrites) {
+        this.catalogVersion = catalogVersion;
+        this.replicaDataSource = replicaDataSource;
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * Creates the pool of the primary, configured by the {@code spring.datasource} properties.
+     *
+     * @param properties the {@code spring.datasource} properties
+     * @return the pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Creates the data source of the read-only connections, with one pool per replica configured like the
+     * primary pool. A replica that is down at startup does not stop the application; its pool connects later.
+     *
+     * @param primaryDataSource the pool of the primary
+     * @param meterRegistry     the registry of the pool meters
+     * @param replicaUrls       the JDBC URLs of the replicas, possibly none
+     * @param username          the user of the replicas
+     * @param password          the password of the replicas
+     * @param connectionTimeout how long a request waits for a replica connection before the replica is marked down
+     * @param checkInterval     the delay between two heartbeats and checks of the replicas
+     * @param maxLag            how far behind the primary a replica may be and still be used
+     * @return the data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${tshirtshop.datasource.replica-urls:}") List<String> replicaUrls,
+            @Value("${tshirtshop.datasource.replica-username:${spring.datasource.username:}}") String username,
+            @Value("${tshirtshop.datasource.replica-password:${spring.datasource.password:}}") String password,
+            @Value("${tshirtshop.datasource.replica-connection-timeout:PT1S}") Duration connectionTimeout,
+            @Value("${tshirtshop.datasource.replica-check-interval:PT1S}") Duration checkInterval,
+            @Value("${tshirtshop.datasource.replica-max-lag:PT3S}") Duration maxLag) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setReadOnly(true);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setInitializationFailTimeout(-1);
+            config.setMetricRegistry(meterRegistry);
+            replicas.add(new HikariDataSource(config));
+        }
+        if (!replicas.isEmpty() && maxLag.plus(checkInterval).compareTo(readYourWrites) > 0) {
+            logger.warn("tshirtshop.datasource.read-your-writes is shorter than the replica lag allowed, {} + {}:"
+                    + " a client may not read its own writes", maxLag, checkInterval);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, checkInterval, maxLag, meterRegistry);
+    }
+
+    /**
+     * Creates the data source of the application, routing each transaction on its first statement and
+     * counting the statements of each request.
+     *
+     * @param primaryDataSource the pool of the primary
+     * @param replicaDataSource the data source of the read-only connections
+     * @return the data source
+     */
+    @Bean
+    @Primary
+    public QueryCountingDataSource dataSource(HikariDataSource primaryDataSource,
+                                              ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return new QueryCountingDataSource(dataSource);
+    }
+
+    /**
+     * Creates the Hibernate vendor adapter configured by the {@code spring.jpa} properties, as Spring Boot does,
+     * with the dialect keeping the replica reads out of the caches.
+     *
+     * @param properties the {@code spring.jpa} properties
+     * @return the vendor adapter
+     */
+    @Bean
+    public HibernateJpaVendorAdapter jpaVendorAdapter(JpaProperties properties) {
+        HibernateJpaDialect jpaDialect = new ReplicaCacheModeJpaDialect();
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        String cookie = ResponseCookie.from(PRIMARY_COOKIE, "1")
+                .maxAge(readYourWrites)
+                .path("/")
+                .httpOnly(true)
+                .build()
+                .toString();
+        ReplicaRoutingDataSource replicas = replicaDataSource.getObject();
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+                    response.addHeader(HttpHeaders.SET_COOKIE, cookie);
+                } else if (!hasPrimaryCookie(request) && !holdsCurrentVersion(request)) {
+                    long appliedUntil = replicas.appliedUntil();
+                    CatalogVersion.Stamp stamp = appliedUntil < 0 ? null : catalogVersion.at(appliedUntil);
+                    if (stamp != null) {
+                        request.setAttribute(ConditionalRequestConfig.STAMP_ATTRIBUTE, stamp);
+                        ReplicaRoutingDataSource.allowReplicas(stamp.getCreatedAt());
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                ReplicaRoutingDataSource.clear();
+            }
+        }).addPathPatterns("/api/products/**", "/api/brands/**", "/api/categories/**").order(-1);
+    }
+
+    /**
+     * Tells whether the client already holds the current version, which the conditional-request interceptor
+     * answers without reading anything.
+     */
+    private boolean holdsCurrentVersion(HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        return ifNoneMatch != null && ifNoneMatch.contains(catalogVersion.current().getETag());
+    }
+
+    private static boolean hasPrimaryCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (PRIMARY_COOKIE.equals(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package be.eafcuccle.tshirtshop.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the application meters that Spring Boot does not provide by itself.
+ * <p>
+ * The {@link TimedAspect} turns the {@code @Timed} annotations of the catalog controllers into timers with
+ * a percentile histogram per controller method. The number of SQL statements of every request is counted by
+ * the {@link QueryCountingDataSource} and recorded in the {@code tshirtshop.http.server.queries} distribution,
+ * tagged like {@code http.server.requests}, which shows the N+1 queries per endpoint.
+ * The request timers, the Hibernate statistics and the connection-pool gauges are auto-configured.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryCountingDataSource queryCountingDataSource;
+
+    /**
+     * Constructs the MetricsConfig with the registry the meters are recorded in.
+     *
+     * @param meterRegistry           the meter registry
+     * @param queryCountingDataSource the data source counting the statements of each request
+     */
+    public MetricsConfig(MeterRegistry meterRegistry, QueryCountingDataSource queryCountingDataSource) {
+        this.meterRegistry = meterRegistry;
+        this.queryCountingDataSource = queryCountingDataSource;
+    }
+
+    /**
+     * Times the methods annotated with {@code @Timed}.
+     *
+     * @return the aspect
+     */
+    @Bean
+    public TimedAspect timedAspect() {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                queryCountingDataSource.start();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder("tshirtshop.http.server.queries")
+                        .description("SQL statements executed per request")
+                        .baseUnit("statements")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                        .tag("status", Integer.toString(response.getStatus()))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(queryCountingDataSource.stop());
+            }
+        });
+    }
+}
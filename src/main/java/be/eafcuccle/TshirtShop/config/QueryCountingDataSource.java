@@ -0,0 +1,77 @@
+package be.eafcuccle.tshirtshop.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Data source counting the SQL statements prepared by the current thread, whoever prepares them: Hibernate,
+ * the {@code JdbcTemplate} of the stock updates, the outbox and the seeding, or Flyway.
+ * <p>
+ * Counting is only done between {@link #start()} and {@link #stop()}, which the web layer calls around each
+ * request, so that the statements of background jobs are not attributed to a request. A JDBC batch is prepared
+ * once and counts as one statement, whatever its number of rows.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+    private static final Set<String> PREPARING_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    /**
+     * Constructs a QueryCountingDataSource.
+     *
+     * @param targetDataSource the data source the connections come from
+     */
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Starts counting the statements of the current thread.
+     */
+    public void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Stops counting the statements of the current thread.
+     *
+     * @return the number of statements prepared since {@link #start()}, or 0 if counting was not started
+     */
+    public int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (PREPARING_METHODS.contains(method.getName())) {
+                        int[] count = COUNT.get();
+                        if (count != null) {
+                            count[0]++;
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,49 @@
+package be.eafcuccle.tshirtshop.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import java.sql.SQLException;
+
+/**
+ * Hibernate dialect keeping the reads of a lagging replica out of the shared second-level and query caches.
+ * <p>
+ * A read-only transaction of a thread allowed to use the replicas runs with {@link CacheMode#GET}: it reads
+ * the caches but does not put what it loads into them, since a replica may return a state older than an
+ * eviction made on the primary, and that state would then be served from the cache to every client. The mode
+ * is set through the {@link CacheStoreMode} property of the entity manager, which {@code find} applies over
+ * the cache mode of the session, and the previous store mode is restored when the transaction ends.
+ */
+class ReplicaCacheModeJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || !ReplicaRoutingDataSource.replicasAllowed()) {
+            return transactionData;
+        }
+        Object previousStoreMode = entityManager.getProperties()
+                .getOrDefault(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager, previousStoreMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData replica) {
+            replica.entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, replica.previousStoreMode);
+            super.cleanupTransaction(replica.transactionData);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private record ReplicaTransactionData(Object transactionData, EntityManager entityManager,
+                                          Object previousStoreMode) {
+    }
+}
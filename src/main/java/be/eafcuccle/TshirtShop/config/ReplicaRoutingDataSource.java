@@ -0,0 +1,250 @@
+package be.eafcuccle.tshirtshop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source of the read-only connections, handing out connections of the read replicas in turn.
+ * <p>
+ * A replica is only used by a thread that called {@link #allowReplicas(long)}: the web layer allows it for the
+ * catalog reads of a client that did not write recently. Every other thread, such as the background jobs
+ * rebuilding the in-memory indexes and snapshots, reads from the primary and never sees a lagging replica.
+ * <p>
+ * The replication lag is measured with a heartbeat: each background check writes the current time to the
+ * {@code replica_heartbeat} row of the primary, then reads the row back from every replica. The beat a replica
+ * holds is its position, the time up to which it has applied the commits of the primary. A replica whose
+ * position is older than the maximum lag is skipped until it catches up, and a thread only uses the replicas
+ * whose position reaches the time it asked for. A replica that fails to give a connection is skipped until a
+ * check finds it valid again, and when no replica is usable the connections come from the primary. The age of
+ * each replica's position is reported as the {@code tshirtshop.datasource.replica.lag} gauge.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final ThreadLocal<Long> REPLICA_POSITION = new ThreadLocal<>();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final String WRITE_HEARTBEAT_SQL = "UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT_SQL = "SELECT beat_millis FROM replica_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final long maxLagMillis;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checkExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs a ReplicaRoutingDataSource and starts checking its replicas in the background.
+     *
+     * @param primary       the data source used when no replica is allowed or usable, where the heartbeat is written
+     * @param replicas      the data sources of the replicas, possibly none
+     * @param checkInterval the delay between two checks of the replicas
+     * @param maxLag        how far behind the primary a replica may be and still be used
+     * @param meterRegistry the registry of the lag gauges
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    Duration checkInterval, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagMillis = maxLag.toMillis();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = new Replica("replica-" + (i + 1), replicas.get(i));
+            this.replicas.add(replica);
+            TimeGauge.builder("tshirtshop.datasource.replica.lag", replica, TimeUnit.MILLISECONDS, Replica::age)
+                    .description("Age of the last heartbeat the replica applied")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+        if (!this.replicas.isEmpty()) {
+            // The first check waits an interval for the migrations to create the heartbeat table;
+            // until then the replicas count as lagging and the primary serves every read.
+            checkExecutor.scheduleWithFixedDelay(this::checkReplicas, checkInterval.toMillis(), checkInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Lets the read-only transactions of the current thread use the replicas that applied the commits of the
+     * primary up to a given time, until {@link #clear()}.
+     *
+     * @param position the time in epoch milliseconds the replicas must have applied the commits up to
+     */
+    public static void allowReplicas(long position) {
+        REPLICA_POSITION.set(position);
+    }
+
+    /**
+     * Tells whether the read-only transactions of the current thread may use a replica.
+     *
+     * @return true between {@link #allowReplicas(long)} and {@link #clear()}
+     */
+    public static boolean replicasAllowed() {
+        return REPLICA_POSITION.get() != null;
+    }
+
+    /**
+     * Sends the read-only transactions of the current thread back to the primary.
+     */
+    public static void clear() {
+        REPLICA_POSITION.remove();
+    }
+
+    /**
+     * Returns the time up to which every usable replica has applied the commits of the primary, as of the last check.
+     *
+     * @return the oldest position of the healthy replicas within the maximum lag, in epoch milliseconds,
+     *         or -1 if no replica is usable
+     */
+    public long appliedUntil() {
+        long position = Long.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (replica.isUsable()) {
+                position = Math.min(position, replica.position);
+            }
+        }
+        return position == Long.MAX_VALUE ? -1 : position;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long position = REPLICA_POSITION.get();
+        if (position != null) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.isUsable() && replica.position >= position) {
+                    try {
+                        return replica.dataSource.getConnection();
+                    } catch (SQLException e) {
+                        replica.markDown(e);
+                    }
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The replicas use the credentials of their pools");
+    }
+
+    /**
+     * Writes a heartbeat to the primary, then reads every replica's with a fresh connection, marking the replica
+     * healthy or down and updating its position.
+     */
+    public void checkReplicas() {
+        writeHeartbeat();
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+                try (ResultSet resultSet = statement.executeQuery(READ_HEARTBEAT_SQL)) {
+                    replica.markUp();
+                    replica.moveTo(resultSet.next() ? resultSet.getLong(1) : -1, maxLagMillis);
+                }
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private void writeHeartbeat() {
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(WRITE_HEARTBEAT_SQL)) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to write the replication heartbeat to the primary", e);
+        }
+    }
+
+    /**
+     * Stops the checks and closes the replica pools.
+     */
+    @Override
+    public void close() {
+        checkExecutor.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A replica, its last known health and its last known position.
+     */
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile boolean lagging = true;
+        private volatile long position = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void markUp() {
+            if (!healthy) {
+                healthy = true;
+                logger.info("The read replica {} is back, read-only transactions use it again", name);
+            }
+        }
+
+        private void markDown(SQLException cause) {
+            if (healthy) {
+                healthy = false;
+                logger.warn("The read replica {} is down, read-only transactions fall back to the primary", name, cause);
+            }
+        }
+
+        private void moveTo(long beat, long maxLagMillis) {
+            position = beat;
+            boolean behind = beat < 0 || System.currentTimeMillis() - beat > maxLagMillis;
+            if (behind && !lagging) {
+                logger.warn("The read replica {} lags behind the primary, read-only transactions avoid it", name);
+            } else if (!behind && lagging) {
+                logger.info("The read replica {} caught up with the primary, read-only transactions use it", name);
+            }
+            lagging = behind;
+        }
+
+        private boolean isUsable() {
+            return healthy && !lagging;
+        }
+
+        private double age() {
+            long beat = position;
+            return beat < 0 ? Double.NaN : System.currentTimeMillis() - beat;
+        }
+    }
+}
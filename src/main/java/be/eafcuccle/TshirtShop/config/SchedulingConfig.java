@@ -0,0 +1,12 @@
+package be.eafcuccle.tshirtshop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} background jobs of the application.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
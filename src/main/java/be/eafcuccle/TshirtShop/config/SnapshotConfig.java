@@ -0,0 +1,116 @@
+package be.eafcuccle.tshirtshop.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import be.eafcuccle.tshirtshop.service.CatalogSnapshots;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves the hot catalog endpoints from the {@link CatalogSnapshots}, before their controllers are called.
+ * <p>
+ * The body is written as stored, in the best content coding the client accepts, so a request costs no query,
+ * no mapping and no serialization. The interceptors are ordered after the conditional-request one, which
+ * answers a client already holding the current version with HTTP status 304 Not Modified. The first page of
+ * products is only served from its snapshot when the request has no cursor, no limit and the default sort.
+ * While a snapshot is missing or outdated, the request falls through to its controller.
+ */
+@Configuration
+public class SnapshotConfig implements WebMvcConfigurer {
+
+    private final CatalogSnapshots catalogSnapshots;
+
+    /**
+     * Constructs the SnapshotConfig with the snapshots it serves.
+     *
+     * @param catalogSnapshots the catalog snapshots
+     */
+    public SnapshotConfig(CatalogSnapshots catalogSnapshots) {
+        this.catalogSnapshots = catalogSnapshots;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        for (CatalogSnapshots.Endpoint endpoint : CatalogSnapshots.Endpoint.values()) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                        throws IOException {
+                    if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())
+                            || !hasDefaultParameters(request)) {
+                        return true;
+                    }
+                    Optional<CatalogSnapshots.Snapshot> snapshot = catalogSnapshots.find(endpoint);
+                    if (snapshot.isEmpty()) {
+                        return true;
+                    }
+                    String coding = negotiateCoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+                    byte[] body = snapshot.get().body(coding);
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    if (coding != null) {
+                        response.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+                    }
+                    response.setContentLength(body.length);
+                    if (!"HEAD".equals(request.getMethod())) {
+                        response.getOutputStream().write(body);
+                    }
+                    return false;
+                }
+            }).addPathPatterns(endpoint.getPath()).order(1);
+        }
+    }
+
+    /**
+     * Tells whether the request has no parameter other than the default sort, so that its response is the snapshot.
+     */
+    private static boolean hasDefaultParameters(HttpServletRequest request) {
+        Map<String, String[]> parameters = request.getParameterMap();
+        if (parameters.isEmpty()) {
+            return true;
+        }
+        String[] sort = parameters.get("sort");
+        return parameters.size() == 1 && sort != null && sort.length == 1 && "id".equalsIgnoreCase(sort[0]);
+    }
+
+    /**
+     * Picks gzip, then deflate, among the codings of an {@code Accept-Encoding} header not refused with
+     * {@code q=0}, or null for the uncompressed body.
+     */
+    private static String negotiateCoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip") || coding.equals("*")) {
+                gzip |= accepted;
+            } else if (coding.equals("deflate")) {
+                deflate |= accepted;
+            }
+        }
+        return gzip ? "gzip" : deflate ? "deflate" : null;
+    }
+}
@@ -0,0 +1,68 @@
+package be.eafcuccle.tshirtshop.config;
+
+/**
+ * A token bucket refilled at a constant rate up to its capacity.
+ * <p>
+ * The bucket is refilled lazily from the elapsed time when tokens are taken, so an idle bucket costs nothing.
+ * A request that cannot be paid for takes nothing and learns how long it would have to wait.
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Constructs a full TokenBucket.
+     *
+     * @param capacity        the maximum number of tokens, which is the largest burst allowed
+     * @param tokensPerSecond the refill rate
+     * @param now             the current {@link System#nanoTime()}
+     */
+    public TokenBucket(double capacity, double tokensPerSecond, long now) {
+        if (capacity <= 0 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("The capacity and the rate of a token bucket must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes tokens if the bucket holds enough of them.
+     *
+     * @param cost the number of tokens to take; a cost above the capacity is charged as the capacity
+     * @param now  the current {@link System#nanoTime()}
+     * @return 0 if the tokens were taken, otherwise the nanoseconds until the bucket holds enough of them
+     */
+    public synchronized long tryTake(double cost, long now) {
+        refill(now);
+        double charged = Math.min(cost, capacity);
+        if (tokens >= charged) {
+            tokens -= charged;
+            return 0;
+        }
+        return (long) Math.ceil((charged - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Gives back tokens taken for a request that was rejected further on.
+     *
+     * @param cost the number of tokens taken
+     */
+    public synchronized void giveBack(double cost) {
+        tokens = Math.min(capacity, tokens + Math.min(cost, capacity));
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
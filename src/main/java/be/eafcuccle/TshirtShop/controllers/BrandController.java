@@ -1,13 +1,16 @@
 package be.eafcuccle.tshirtshop.controllers;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
 import be.eafcuccle.tshirtshop.models.Brand;
 import be.eafcuccle.tshirtshop.repositories.BrandRepository;
-import be.eafcuccle.tshirtshop.service.SequenceService;
-import java.util.List;
-import java.util.Optional;
+import be.eafcuccle.tshirtshop.service.CatalogCounters;
+import be.eafcuccle.tshirtshop.service.CatalogLookupService;
+import be.eafcuccle.tshirtshop.service.CatalogPageService;
+import java.util.*;
 
 /**
  * BrandController is a REST controller that handles CRUD operations for {@link Brand} entities.
@@ -15,22 +18,30 @@ import java.util.Optional;
  * Methods are mapped to HTTP requests and return appropriate responses based on the operation's result.
  */
 @RestController
+@Timed(value = "tshirtshop.catalog.requests", description = "Catalog controller methods", histogram = true)
 @RequestMapping("/api/brands")
 public class BrandController {
 
     private final BrandRepository brandRepository;
-    private final SequenceService sequenceService;
+    private final CatalogLookupService catalogLookupService;
+    private final CatalogPageService catalogPageService;
+    private final CatalogCounters catalogCounters;
 
     /**
      * Constructs a BrandController with dependencies for the brand repository
-     * and the sequence service.
+     * and the paginated listings.
      *
-     * @param brandRepository the repository for performing CRUD operations on Brand entities
-     * @param sequenceService the service to manage ID sequence after deletion
+     * @param brandRepository      the repository for performing CRUD operations on Brand entities
+     * @param catalogLookupService the cached lookups of brands, which must see every brand write
+     * @param catalogPageService   the service building the paginated listings
+     * @param catalogCounters      the in-memory product counts
      */
-    public BrandController(BrandRepository brandRepository, SequenceService sequenceService) {
+    public BrandController(BrandRepository brandRepository, CatalogLookupService catalogLookupService,
+                           CatalogPageService catalogPageService, CatalogCounters catalogCounters) {
         this.brandRepository = brandRepository;
-        this.sequenceService = sequenceService;
+        this.catalogLookupService = catalogLookupService;
+        this.catalogPageService = catalogPageService;
+        this.catalogCounters = catalogCounters;
     }
 
     /**
@@ -41,18 +52,26 @@ public class BrandController {
      */
     @PostMapping
     public ResponseEntity<Brand> createBrand(@RequestBody Brand brand) {
-        Brand savedBrand = brandRepository.save(brand);
+        Brand savedBrand = catalogLookupService.saveBrand(brand);
         return new ResponseEntity<>(savedBrand, HttpStatus.CREATED);
     }
 
     /**
-     * Retrieves all available brands in the system.
+     * Retrieves a page of brands, using keyset pagination on the brand ID.
      *
-     * @return a response containing the list of all brands and HTTP status 200 OK
+     * @param cursor the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit  the maximum number of brands in the page
+     * @return a response containing the page of brands and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if a parameter is invalid
      */
     @GetMapping
-    public ResponseEntity<List<Brand>> getAllBrands() {
-        return ResponseEntity.ok(brandRepository.findAll());
+    public ResponseEntity<CursorPage<Brand>> getAllBrands(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(catalogPageService.brands(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -63,11 +82,29 @@ public class BrandController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Brand> getBrandById(@PathVariable Integer id) {
-        Optional<Brand> brand = brandRepository.findById(id);
+        Optional<Brand> brand = catalogLookupService.findBrandById(id);
         return brand.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Retrieves brand names along with product counts for each brand.
+     * The counts are served from memory, without querying the database.
+     *
+     * @return a response containing a list of brand names with corresponding product counts and HTTP status 200 OK
+     */
+    @GetMapping("/names-with-counts")
+    public ResponseEntity<List<Map<String, Object>>> getBrandNamesWithProductCounts() {
+        List<Map<String, Object>> response = new ArrayList<>();
+        catalogCounters.countByBrand().forEach((name, count) -> {
+            Map<String, Object> brandInfo = new HashMap<>();
+            brandInfo.put("name", name);
+            brandInfo.put("productCount", count);
+            response.add(brandInfo);
+        });
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Updates an existing brand identified by its ID.
      *
@@ -79,7 +116,7 @@ public class BrandController {
     public ResponseEntity<Brand> updateBrand(@PathVariable Integer id, @RequestBody Brand brand) {
         return brandRepository.findById(id).map(existingBrand -> {
             existingBrand.setName(brand.getName());
-            Brand updatedBrand = brandRepository.save(existingBrand);
+            Brand updatedBrand = catalogLookupService.saveBrand(existingBrand);
             return ResponseEntity.ok(updatedBrand);
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -93,8 +130,7 @@ public class BrandController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBrand(@PathVariable Integer id) {
         if (brandRepository.existsById(id)) {
-            brandRepository.deleteById(id);
-            sequenceService.reassignIdsAfterDeletion("brand");
+            catalogLookupService.deleteBrand(id);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -0,0 +1,52 @@
+package be.eafcuccle.tshirtshop.controllers;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.*;
+
+/**
+ * CacheController is a read-only REST controller exposing the hit and miss counters
+ * of the application caches.
+ */
+@RestController
+@RequestMapping("/api/caches")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Constructs a CacheController with the application cache manager.
+     *
+     * @param cacheManager the cache manager holding the application caches
+     */
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Retrieves the statistics of every cache: size, hits, misses, hit rate and evictions.
+     *
+     * @return a response containing the statistics of each cache and HTTP status 200 OK
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getCacheStatistics() {
+        List<Map<String, Object>> response = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                Map<String, Object> cacheInfo = new LinkedHashMap<>();
+                cacheInfo.put("name", name);
+                cacheInfo.put("size", cache.getNativeCache().estimatedSize());
+                cacheInfo.put("hits", stats.hitCount());
+                cacheInfo.put("misses", stats.missCount());
+                cacheInfo.put("hitRate", stats.hitRate());
+                cacheInfo.put("evictions", stats.evictionCount());
+                response.add(cacheInfo);
+            }
+        }
+        return ResponseEntity.ok(response);
+    }
+}
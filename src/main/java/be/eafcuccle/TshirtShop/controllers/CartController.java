@@ -0,0 +1,120 @@
+package be.eafcuccle.tshirtshop.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import be.eafcuccle.tshirtshop.dto.CartDTO;
+import be.eafcuccle.tshirtshop.service.CartService;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * CartController is a REST controller managing the shopping carts.
+ * Carts are held in memory by the {@link CartService}; these endpoints do not query the database
+ * unless the cart was evicted for being idle.
+ */
+@RestController
+@RequestMapping("/api/carts")
+public class CartController {
+
+    private final CartService cartService;
+
+    /**
+     * Constructs a CartController with a dependency for the cart service.
+     *
+     * @param cartService the service holding the carts
+     */
+    public CartController(CartService cartService) {
+        this.cartService = cartService;
+    }
+
+    /**
+     * Creates an empty cart.
+     *
+     * @return a response containing the new cart and HTTP status 201 Created
+     */
+    @PostMapping
+    public ResponseEntity<CartDTO> createCart() {
+        return new ResponseEntity<>(cartService.create(), HttpStatus.CREATED);
+    }
+
+    /**
+     * Retrieves a cart with the current name and price of its products.
+     *
+     * @param cartId the ID of the cart
+     * @return a response containing the cart if it exists, or HTTP status 404 Not Found if not found
+     */
+    @GetMapping("/{cartId}")
+    public ResponseEntity<CartDTO> getCart(@PathVariable String cartId) {
+        return cartService.find(cartId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Adds a quantity of a product to a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @param quantity  the quantity to add
+     * @return a response containing the updated cart and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the product does not exist or the quantity is invalid,
+     *         or HTTP status 404 Not Found if the cart does not exist
+     */
+    @PostMapping("/{cartId}/lines")
+    public ResponseEntity<CartDTO> addLine(@PathVariable String cartId, @RequestParam int productId,
+                                           @RequestParam(defaultValue = "1") int quantity) {
+        return cartResponse(() -> cartService.addProduct(cartId, productId, quantity));
+    }
+
+    /**
+     * Sets the quantity of a product in a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @param quantity  the new quantity, or 0 to remove the product
+     * @return a response containing the updated cart and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the product does not exist or the quantity is invalid,
+     *         or HTTP status 404 Not Found if the cart does not exist
+     */
+    @PutMapping("/{cartId}/lines/{productId}")
+    public ResponseEntity<CartDTO> updateLine(@PathVariable String cartId, @PathVariable int productId,
+                                              @RequestParam int quantity) {
+        return cartResponse(() -> cartService.setQuantity(cartId, productId, quantity));
+    }
+
+    /**
+     * Removes a product from a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @return a response containing the updated cart and HTTP status 200 OK,
+     *         or HTTP status 404 Not Found if the cart does not exist
+     */
+    @DeleteMapping("/{cartId}/lines/{productId}")
+    public ResponseEntity<CartDTO> removeLine(@PathVariable String cartId, @PathVariable int productId) {
+        return cartResponse(() -> cartService.removeProduct(cartId, productId));
+    }
+
+    /**
+     * Deletes a cart.
+     *
+     * @param cartId the ID of the cart
+     * @return a response with HTTP status 204 No Content if the deletion is successful,
+     *         or HTTP status 404 Not Found if the cart does not exist
+     */
+    @DeleteMapping("/{cartId}")
+    public ResponseEntity<Void> deleteCart(@PathVariable String cartId) {
+        return cartService.delete(cartId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<CartDTO> cartResponse(Supplier<Optional<CartDTO>> change) {
+        try {
+            return change.get()
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package be.eafcuccle.tshirtshop.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import be.eafcuccle.tshirtshop.service.CatalogChangeFeed;
+
+/**
+ * CatalogChangeController streams the changes of the products, categories, brands and stock as
+ * Server-Sent Events, so that clients can update their copy of the catalog instead of polling it.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogChangeController {
+
+    private final CatalogChangeFeed catalogChangeFeed;
+
+    /**
+     * Constructs a CatalogChangeController with a dependency for the change feed.
+     *
+     * @param catalogChangeFeed the feed of the committed catalog changes
+     */
+    public CatalogChangeController(CatalogChangeFeed catalogChangeFeed) {
+        this.catalogChangeFeed = catalogChangeFeed;
+    }
+
+    /**
+     * Streams the catalog changes. Each {@code change} event carries its offset as event ID; a client resumes
+     * after a given offset with the {@code Last-Event-ID} header, which browsers send when they reconnect, or
+     * with the {@code after} parameter. A {@code reset} event tells the client that changes were lost and that
+     * it must reload the catalog.
+     *
+     * @param lastEventId the offset of the last change received, sent when reconnecting
+     * @param after       the offset of the last change received, when not given as {@code Last-Event-ID}
+     * @return a response streaming the changes, or HTTP status 503 Service Unavailable if the feed
+     *         is starting or has too many clients
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                 @RequestParam(required = false) Long after) {
+        try {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .body(catalogChangeFeed.subscribe(lastEventId != null ? lastEventId : after));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+}
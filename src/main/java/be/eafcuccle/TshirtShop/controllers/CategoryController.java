@@ -1,12 +1,16 @@
 package be.eafcuccle.tshirtshop.controllers;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import be.eafcuccle.tshirtshop.models.Category;
 import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
 import be.eafcuccle.tshirtshop.dto.CategoryDTO;
-import be.eafcuccle.tshirtshop.service.SequenceService;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
+import be.eafcuccle.tshirtshop.service.CatalogCounters;
+import be.eafcuccle.tshirtshop.service.CatalogLookupService;
+import be.eafcuccle.tshirtshop.service.CatalogPageService;
 import java.util.*;
 
 /**
@@ -14,21 +18,29 @@ import java.util.*;
  * It provides endpoints to create, retrieve, update, delete categories, as well as initialize default categories.
  */
 @RestController
+@Timed(value = "tshirtshop.catalog.requests", description = "Catalog controller methods", histogram = true)
 @RequestMapping("/api/categories")
 public class CategoryController {
 
     private final CategoryRepository categoryRepository;
-    private final SequenceService sequenceService;
+    private final CatalogLookupService catalogLookupService;
+    private final CatalogPageService catalogPageService;
+    private final CatalogCounters catalogCounters;
 
     /**
-     * Constructs a CategoryController with dependencies for the category repository and sequence service.
+     * Constructs a CategoryController with dependencies for the category repository and the paginated listings.
      *
      * @param categoryRepository the repository for performing CRUD operations on Category entities
-     * @param sequenceService the service for managing sequence IDs after deletion
+     * @param catalogLookupService the cached lookups of categories, which must see every category write
+     * @param catalogPageService the service building the paginated listings
+     * @param catalogCounters the in-memory product counts
      */
-    public CategoryController(CategoryRepository categoryRepository, SequenceService sequenceService) {
+    public CategoryController(CategoryRepository categoryRepository, CatalogLookupService catalogLookupService,
+                              CatalogPageService catalogPageService, CatalogCounters catalogCounters) {
         this.categoryRepository = categoryRepository;
-        this.sequenceService = sequenceService;
+        this.catalogLookupService = catalogLookupService;
+        this.catalogPageService = catalogPageService;
+        this.catalogCounters = catalogCounters;
     }
 
     /**
@@ -39,17 +51,25 @@ public class CategoryController {
      */
     @PostMapping
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
-        return new ResponseEntity<>(categoryRepository.save(category), HttpStatus.CREATED);
+        return new ResponseEntity<>(catalogLookupService.saveCategory(category), HttpStatus.CREATED);
     }
 
     /**
-     * Retrieves all available categories.
+     * Retrieves a page of categories, using keyset pagination on the category ID.
      *
-     * @return a response containing the list of all categories and HTTP status 200 OK
+     * @param cursor the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit the maximum number of categories in the page
+     * @return a response containing the page of categories and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if a parameter is invalid
      */
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(categoryRepository.findAll());
+    public ResponseEntity<CursorPage<Category>> getAllCategories(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(catalogPageService.categories(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/dtos")
@@ -76,17 +96,17 @@ public class CategoryController {
 
     /**
      * Retrieves category names along with product counts for each category.
+     * The counts are served from memory, without querying the database.
      *
      * @return a response containing a list of category names with corresponding product counts and HTTP status 200 OK
      */
     @GetMapping("/names-with-counts")
     public ResponseEntity<List<Map<String, Object>>> getCategoryNamesWithProductCounts() {
-        List<Object[]> categoryData = categoryRepository.findCategoryNamesWithProductCounts();
         List<Map<String, Object>> response = new ArrayList<>();
-        categoryData.forEach(data -> {
+        catalogCounters.countByCategory().forEach((name, count) -> {
             Map<String, Object> categoryInfo = new HashMap<>();
-            categoryInfo.put("name", data[0]);
-            categoryInfo.put("productCount", data[1]);
+            categoryInfo.put("name", name);
+            categoryInfo.put("productCount", count);
             response.add(categoryInfo);
         });
         return ResponseEntity.ok(response);
@@ -101,8 +121,8 @@ public class CategoryController {
     public ResponseEntity<String> initializeCategories() {
         List<String> defaultCategories = Arrays.asList("Homme", "Femme", "Mixte", "Enfant Fille", "Enfant Garçon");
         defaultCategories.forEach(name ->
-                categoryRepository.findByName(name)
-                        .orElseGet(() -> categoryRepository.save(new Category(name)))
+                catalogLookupService.findCategoryByName(name)
+                        .orElseGet(() -> catalogLookupService.saveCategory(new Category(name)))
         );
         return ResponseEntity.status(HttpStatus.CREATED).body("Default categories initialized.");
     }
@@ -119,7 +139,7 @@ public class CategoryController {
         return categoryRepository.findById(id)
                 .map(existingCategory -> {
                     existingCategory.setName(category.getName());
-                    return categoryRepository.save(existingCategory);
+                    return catalogLookupService.saveCategory(existingCategory);
                 })
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -134,7 +154,7 @@ public class CategoryController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(@PathVariable String id) {
         if (categoryRepository.existsById(id)) {
-            categoryRepository.deleteById(id);
+            catalogLookupService.deleteCategory(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -0,0 +1,88 @@
+package be.eafcuccle.tshirtshop.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import be.eafcuccle.tshirtshop.dto.CheckoutRequest;
+import be.eafcuccle.tshirtshop.dto.CommandDTO;
+import be.eafcuccle.tshirtshop.models.CommandStatus;
+import be.eafcuccle.tshirtshop.service.CheckoutService;
+import be.eafcuccle.tshirtshop.service.InsufficientStockException;
+import be.eafcuccle.tshirtshop.service.PriceChangedException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CommandController is a REST controller placing and retrieving orders.
+ * Placing an order only reserves its stock and saves it; the payment is processed in the background,
+ * so the order is returned with HTTP status 202 Accepted and its status must be polled.
+ */
+@RestController
+@RequestMapping("/api/commands")
+public class CommandController {
+
+    private final CheckoutService checkoutService;
+
+    /**
+     * Constructs a CommandController with a dependency for the checkout service.
+     *
+     * @param checkoutService the service turning carts into orders
+     */
+    public CommandController(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
+
+    /**
+     * Places an order from a cart.
+     *
+     * @param request the cart, the payment type and the total the client accepted
+     * @return a response containing the ID and status of the pending order and HTTP status 202 Accepted,
+     *         HTTP status 400 Bad Request if the request is incomplete, the expected total is invalid or the cart is empty,
+     *         HTTP status 404 Not Found if the cart does not exist,
+     *         or HTTP status 409 Conflict if the cart is already being checked out, a price changed or the stock is too low
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> checkout(@RequestBody CheckoutRequest request) {
+        Optional<Long> commandId;
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            commandId = checkoutService.checkout(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (PriceChangedException e) {
+            response.put("total", e.getTotal());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (InsufficientStockException e) {
+            response.put("productId", e.getProductId());
+            response.put("requested", e.getRequested());
+            response.put("available", e.getAvailable());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        if (commandId.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
+                .buildAndExpand(commandId.get()).toUri();
+        response.put("commandId", commandId.get());
+        response.put("status", CommandStatus.PENDING);
+        return ResponseEntity.accepted().location(location).body(response);
+    }
+
+    /**
+     * Retrieves an order with its lines and the status of its payment and delivery.
+     *
+     * @param id the ID of the order
+     * @return a response containing the order if it exists, or HTTP status 404 Not Found if not found
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<CommandDTO> getCommand(@PathVariable long id) {
+        return checkoutService.find(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
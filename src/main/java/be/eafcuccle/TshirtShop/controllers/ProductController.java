@@ -1,30 +1,51 @@
 package be.eafcuccle.tshirtshop.controllers;
 
+import io.micrometer.core.annotation.Timed;
 import be.eafcuccle.tshirtshop.models.Product;
 import be.eafcuccle.tshirtshop.models.Category;
 import be.eafcuccle.tshirtshop.models.Brand;
 import be.eafcuccle.tshirtshop.models.Size;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
+import be.eafcuccle.tshirtshop.dto.FacetResult;
+import be.eafcuccle.tshirtshop.dto.ImportReport;
 import be.eafcuccle.tshirtshop.dto.ProductDTO;
 import be.eafcuccle.tshirtshop.repositories.ProductRepository;
-import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
-import be.eafcuccle.tshirtshop.repositories.BrandRepository;
-import be.eafcuccle.tshirtshop.service.SequenceService;
+import be.eafcuccle.tshirtshop.service.CatalogCounters;
+import be.eafcuccle.tshirtshop.service.CatalogLookupService;
+import be.eafcuccle.tshirtshop.service.CatalogPageService;
+import be.eafcuccle.tshirtshop.service.ImageStorageService;
+import be.eafcuccle.tshirtshop.service.ImageVariant;
+import be.eafcuccle.tshirtshop.service.ProductFacetIndex;
+import be.eafcuccle.tshirtshop.service.ProductImportService;
+import be.eafcuccle.tshirtshop.service.ProductSearchIndex;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 
 import java.util.*;
 
@@ -36,46 +57,56 @@ import java.util.*;
  * and download product images.
  */
 @RestController
+@Timed(value = "tshirtshop.catalog.requests", description = "Catalog controller methods", histogram = true)
 @RequestMapping("/api/products")
 @Validated
 public class ProductController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final ProductRepository productRepository;
-    private final SequenceService sequenceService;
-    private final CategoryRepository categoryRepository;
-    private final BrandRepository brandRepository;
+    private final CatalogLookupService catalogLookupService;
+    private final CatalogPageService catalogPageService;
+    private final ImageStorageService imageStorageService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final CatalogCounters catalogCounters;
+    private final ProductImportService productImportService;
+    private final CacheControl imageCacheControl;
 
     /**
      * Constructs a ProductController with dependencies for the product repository
-     * and sequence service.
+     * and the paginated listings.
      *
-     * @param productRepository the repository for performing CRUD operations on
-     *                          Product entities
-     * @param sequenceService   the service for managing sequence IDs after deletion
+     * @param productRepository    the repository for performing CRUD operations on
+     *                             Product entities
+     * @param catalogLookupService the cached lookups of categories and brands
+     * @param catalogPageService   the service building the paginated listings
+     * @param imageStorageService  the service locating the product images
+     * @param productSearchIndex   the in-memory full-text index of the products
+     * @param productFacetIndex    the in-memory facet index of the products
+     * @param catalogCounters      the in-memory product counts
+     * @param productImportService the service importing products in bulk
+     * @param imageMaxAge          how long clients may cache a product image
      */
-    public ProductController(ProductRepository productRepository, SequenceService sequenceService,
-                             CategoryRepository categoryRepository, BrandRepository brandRepository) {
+    public ProductController(ProductRepository productRepository,
+                             CatalogLookupService catalogLookupService, CatalogPageService catalogPageService,
+                             ImageStorageService imageStorageService, ProductSearchIndex productSearchIndex,
+                             ProductFacetIndex productFacetIndex, CatalogCounters catalogCounters,
+                             ProductImportService productImportService,
+                             @Value("${tshirtshop.images.max-age}") Duration imageMaxAge) {
         this.productRepository = productRepository;
-        this.sequenceService = sequenceService;
-        this.categoryRepository = categoryRepository;
-        this.brandRepository = brandRepository;
-    }
-
-    @PostConstruct
-    public void addData() {
-        categoryRepository.save(new Category("Hommes"));
-        categoryRepository.save(new Category("Femmes"));
-        categoryRepository.save(new Category("Enfants"));
-        brandRepository.save(new Brand("Nike"));
-        brandRepository.save(new Brand("Adidas"));
-        brandRepository.save(new Brand("Jack & Jones"));
-        productRepository.save(new Product("T-Shirt simple", "Un simple demi manche", 15.95f, 10, "Blanc",
-                categoryRepository.findByName("Hommes").get(), brandRepository.findByName("Nike").get(), Size.L));
-        productRepository.save(new Product("T-Shirt V", "Un simple demi manche avec col en V", 17.95f, 5, "Blanc",
-                categoryRepository.findByName("Hommes").get(), brandRepository.findByName("Nike").get(), Size.M));
-        productRepository.save(new Product("T-Shirt Oversize", "Un demi manche large", 19.95f, 23, "Bleu",
-                categoryRepository.findByName("Femmes").get(), brandRepository.findByName("Jack & Jones").get(),
-                Size.S));
+        this.catalogLookupService = catalogLookupService;
+        this.catalogPageService = catalogPageService;
+        this.imageStorageService = imageStorageService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.catalogCounters = catalogCounters;
+        this.productImportService = productImportService;
+        this.imageCacheControl = CacheControl.maxAge(imageMaxAge).cachePublic();
     }
 
     /**
@@ -101,13 +132,139 @@ public class ProductController {
     }
 
     /**
-     * Retrieves all products.
+     * Retrieves a page of products, using keyset pagination.
      *
-     * @return a response containing the list of all products and HTTP status 200 OK
+     * @param cursor the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit  the maximum number of products in the page
+     * @param sort   the sort key: {@code id} (default), {@code price} or {@code name}
+     * @return a response containing the page of products and HTTP status 200 OK,
+     *         or HTTP status 400 Bad Request if a parameter is invalid
      */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productRepository.findAll());
+    public ResponseEntity<CursorPage<Product>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              @RequestParam(defaultValue = "id") String sort) {
+        try {
+            return ResponseEntity.ok(catalogPageService.products(cursor, limit, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Searches the products whose name, description, color, brand or category match a text query.
+     * The search is answered from an in-memory index, ignoring case and accents; results are ranked by relevance.
+     *
+     * @param q      the text to search for
+     * @param cursor the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit  the maximum number of products in the page
+     * @return a response containing the page of matching products and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if a parameter is invalid,
+     *         or HTTP status 503 Service Unavailable while the index is being built
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<ProductDTO>> searchProducts(@RequestParam String q,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productSearchIndex.search(q, cursor, catalogPageService.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Filters the products on any combination of category, brand, size, color and price range,
+     * and counts the matching products for each facet value. Several values of the same facet
+     * match any of them. The filter is answered from an in-memory bitmap index.
+     *
+     * @param category the names of the categories to keep
+     * @param brand    the names of the brands to keep
+     * @param size     the sizes to keep
+     * @param color    the colors to keep
+     * @param minPrice the minimum unit price
+     * @param maxPrice the maximum unit price
+     * @param cursor   the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit    the maximum number of products in the page
+     * @return a response containing the page of matching products with the facet counts and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if a parameter is invalid,
+     *         or HTTP status 503 Service Unavailable while the index is being built
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<FacetResult> filterProducts(@RequestParam(required = false) List<String> category,
+                                                      @RequestParam(required = false) List<String> brand,
+                                                      @RequestParam(required = false) List<Size> size,
+                                                      @RequestParam(required = false) List<String> color,
+                                                      @RequestParam(required = false) BigDecimal minPrice,
+                                                      @RequestParam(required = false) BigDecimal maxPrice,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        Map<ProductFacetIndex.Facet, Collection<String>> selections = new EnumMap<>(ProductFacetIndex.Facet.class);
+        selections.put(ProductFacetIndex.Facet.CATEGORY, category);
+        selections.put(ProductFacetIndex.Facet.BRAND, brand);
+        selections.put(ProductFacetIndex.Facet.SIZE, size == null ? null : size.stream().map(Size::name).toList());
+        selections.put(ProductFacetIndex.Facet.COLOR, color);
+        try {
+            return ResponseEntity.ok(productFacetIndex.filter(selections, minPrice, maxPrice, cursor,
+                    catalogPageService.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Lists the products within a price range, cheapest or most expensive first. The first page
+     * of an unbounded range gives the cheapest or most expensive products of the catalog.
+     * The listing is answered from an in-memory sorted price index.
+     *
+     * @param minPrice the minimum unit price
+     * @param maxPrice the maximum unit price
+     * @param order    {@code asc} (default) for the cheapest products first, {@code desc} for the most expensive
+     * @param cursor   the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit    the maximum number of products in the page
+     * @return a response containing the page of products and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if a parameter is invalid,
+     *         or HTTP status 503 Service Unavailable while the index is being built
+     */
+    @GetMapping("/by-price")
+    public ResponseEntity<CursorPage<ProductDTO>> getProductsByPrice(@RequestParam(required = false) BigDecimal minPrice,
+                                                                     @RequestParam(required = false) BigDecimal maxPrice,
+                                                                     @RequestParam(defaultValue = "asc") String order,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer limit) {
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productFacetIndex.byPrice(minPrice, maxPrice, order.equalsIgnoreCase("desc"),
+                    cursor, catalogPageService.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Retrieves the number of products of every size, including the sizes without products.
+     * The counts are served from memory, without querying the database.
+     *
+     * @return a response containing a list of sizes with corresponding product counts and HTTP status 200 OK
+     */
+    @GetMapping("/sizes-with-counts")
+    public ResponseEntity<List<Map<String, Object>>> getSizesWithProductCounts() {
+        List<Map<String, Object>> response = new ArrayList<>();
+        catalogCounters.countBySize().forEach((size, count) -> {
+            Map<String, Object> sizeInfo = new HashMap<>();
+            sizeInfo.put("size", size);
+            sizeInfo.put("productCount", count);
+            response.add(sizeInfo);
+        });
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -140,29 +297,56 @@ public class ProductController {
      * Creates a new product.
      *
      * @param product the Product entity to create
-     * @return a response containing the created product and HTTP status 201 Created
+     * @return a response containing the created product and HTTP status 201 Created,
+     *         or HTTP status 400 Bad Request if its category or brand does not exist
      */
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
+        if (!resolveCatalogReferences(product)) {
+            return ResponseEntity.badRequest().build();
+        }
         return new ResponseEntity<>(productRepository.save(product), HttpStatus.CREATED);
     }
 
+    /**
+     * Imports products in bulk from a CSV file with a header row, or from NDJSON with one product per line.
+     * Each product gives its {@code name}, {@code description}, {@code price}, {@code stock}, {@code color},
+     * {@code category} and {@code brand} names, and {@code size}. The body is streamed, not buffered,
+     * and invalid rows are reported without stopping the import.
+     *
+     * @param contentType the format of the body, {@code text/csv} or {@code application/x-ndjson}
+     * @param body        the products to import
+     * @return a response containing the number of imported and rejected rows, with the reason of each rejection,
+     *         and HTTP status 200 OK
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                       InputStream body) throws IOException {
+        ProductImportService.Format format = contentType.isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? ProductImportService.Format.CSV : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(productImportService.importProducts(body, format));
+    }
+
     /**
      * Updates an existing product identified by its ID.
      *
      * @param id      the unique identifier of the product to update
      * @param product the new information for the product
-     * @return a response containing the updated product if found, or HTTP status
-     *         404 Not Found if not found
+     * @return a response containing the updated product if found, HTTP status
+     *         404 Not Found if not found, or HTTP status 400 Bad Request if its
+     *         category or brand does not exist
      */
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Integer id, @RequestBody Product product) {
+        if (!resolveCatalogReferences(product)) {
+            return ResponseEntity.badRequest().build();
+        }
         return productRepository.findById(id)
                 .map(existingProduct -> {
                     existingProduct.setProductName(product.getProductName());
                     existingProduct.setProductDescription(product.getProductDescription());
-                    existingProduct.setUnitPrice(product.getUnitPrice());
-                    existingProduct.setQuantityInStock(product.getQuantityInStock());
+                    existingProduct.setUnitPriceCents(product.getUnitPriceCents());
                     existingProduct.setColor(product.getColor());
                     existingProduct.setCategory(product.getCategory());
                     existingProduct.setBrand(product.getBrand());
@@ -183,7 +367,6 @@ public class ProductController {
     public ResponseEntity<Void> deleteProduct(@PathVariable Integer id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
-            sequenceService.reassignIdsAfterDeletion("product");
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -191,49 +374,173 @@ public class ProductController {
 
     /**
      * Retrieves the image associated with a specific product by its ID.
+     * The image is read from the storage directory without querying the database.
+     * Conditional requests ({@code If-None-Match}, {@code If-Modified-Since}) are answered
+     * with HTTP status 304 Not Modified, and a single byte range can be requested with the
+     * {@code Range} header. The file is sent with zero-copy I/O when the server supports it.
+     * When a variant cannot be resized in time, the original image is sent in its place with
+     * {@code Cache-Control: no-cache} and its own entity tag, so caches do not keep it as the variant.
      *
-     * @param id the unique identifier of the product
-     * @return a response containing the image file if found, or HTTP status 404 Not
-     *         Found if the image or product is not found
+     * @param id       the unique identifier of the product
+     * @param variant  the size of the image: {@code thumbnail}, {@code card} or {@code full} (default)
+     * @param request  the current request
+     * @param response the response the image is written to
+     * @throws IOException if the image cannot be sent
      */
     @GetMapping("/image/{id}")
-    public ResponseEntity<Resource> getProductImage(@PathVariable Integer id) {
-        return productRepository.findById(id)
-                .flatMap(product -> {
-                    Path imagePath = Paths.get("src/main/resources/images/tshirts/" + id + ".jpg");
-                    try {
-                        if (Files.exists(imagePath)) {
-                            Resource image = new UrlResource(imagePath.toUri());
-                            return Optional.of(ResponseEntity.ok()
-                                    .contentType(MediaType.IMAGE_JPEG)
-                                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                                            "attachment; filename=\"" + image.getFilename() + "\"")
-                                    .body(image));
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
+    public void getProductImage(@PathVariable Integer id, @RequestParam(defaultValue = "full") String variant,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant imageVariant;
+        try {
+            imageVariant = ImageVariant.fromName(variant);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        Optional<Path> image = imageStorageService.findProductImage(id, imageVariant);
+        if (image.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path imagePath = image.get();
+        BasicFileAttributes attributes = Files.readAttributes(imagePath, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean fallback = imageVariant != ImageVariant.FULL && imageStorageService.isOriginal(id, imagePath);
+        String etag = "\"" + (fallback ? "original-" : "") + Long.toHexString(length) + "-"
+                + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                (fallback ? CacheControl.noCache() : imageCacheControl).getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && isRangeApplicable(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    count = ranges.get(0).getRangeEnd(length) - start + 1;
+                    if (start >= length || count <= 0) {
+                        throw new IllegalArgumentException("Range not satisfiable: " + range);
                     }
-                    return Optional.empty();
-                })
-                .orElse(ResponseEntity.notFound().build());
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            // Several ranges would need a multipart body: the whole image is sent instead, as RFC 9110 allows.
+            if (ranges.size() == 1) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (start + count - 1) + "/" + length);
+            }
+        }
+
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + imagePath.getFileName() + "\"");
+        response.setContentLengthLong(count);
+        if (!"HEAD".equals(request.getMethod())) {
+            transferFile(imagePath, start, count, request, response);
+        }
+    }
+
+    /**
+     * Tells whether the {@code Range} header must be honoured, that is when there is no
+     * {@code If-Range} header or when it still matches the current version of the file.
+     */
+    private boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sends a slice of a file without copying it through the heap. When the servlet container
+     * supports it, the transfer is handed over to its sendfile implementation; otherwise
+     * {@link FileChannel#transferTo} is used.
+     */
+    private void transferFile(Path file, long start, long count, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, output);
+                position += sent;
+                remaining -= sent;
+            }
+        }
     }
 
     /**
-     * Retrieve all products of a given category name
+     * Retrieves a page of the products of a given category, sorted by ID.
+     * The page is read with a single projection query, so its cost depends on the page size
+     * and not on the size of the category.
      *
-     * @param categoryId the given category name
-     * @return the list of the products of the category
+     * @param categoryId the ID of the category
+     * @param cursor     the cursor of the page to retrieve, as returned in the previous page; omit it for the first page
+     * @param limit      the maximum number of products in the page
+     * @return a response containing the page of products and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the cursor or the limit is invalid,
+     *         or HTTP status 404 Not Found if the category does not exist
      */
     @GetMapping("/catagory/{categoryId}")
-    public ResponseEntity<List<ProductDTO>> getProductByCategory(@PathVariable String categoryId) {
-        Optional<Category> cat = categoryRepository.findById(categoryId);
-        if (!cat.isPresent())
+    public ResponseEntity<CursorPage<ProductDTO>> getProductByCategory(@PathVariable String categoryId,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(required = false) Integer limit) {
+        if (catalogLookupService.findCategoryById(categoryId).isEmpty()) {
             return ResponseEntity.notFound().build();
-        List<Product> products = cat.get().getProducts();
-        List<ProductDTO> res = new ArrayList<>();
-        for (Product product : products) {
-            res.add(new ProductDTO(product));
         }
-        return ResponseEntity.ok(res);
+        try {
+            return ResponseEntity.ok(catalogPageService.productsByCategory(categoryId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Replaces the category and brand references sent by the client with the
+     * cached entities, so that checking them does not query the database.
+     *
+     * @param product the product whose references are resolved
+     * @return true if both the category and the brand exist, false otherwise
+     */
+    private boolean resolveCatalogReferences(Product product) {
+        if (product.getCategory() == null || product.getBrand() == null) {
+            return false;
+        }
+        Optional<Category> category = catalogLookupService.findCategoryById(product.getCategory().getId());
+        Optional<Brand> brand = catalogLookupService.findBrandById(product.getBrand().getId());
+        if (category.isEmpty() || brand.isEmpty()) {
+            return false;
+        }
+        product.setCategory(category.get());
+        product.setBrand(brand.get());
+        return true;
     }
 }
@@ -0,0 +1,122 @@
+package be.eafcuccle.tshirtshop.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import be.eafcuccle.tshirtshop.dto.StockItem;
+import be.eafcuccle.tshirtshop.service.InsufficientStockException;
+import be.eafcuccle.tshirtshop.service.StockService;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * StockController is a REST controller reserving, releasing and adjusting the stock of the products.
+ * Each operation is an atomic conditional update, so concurrent buyers can never oversell a product.
+ * A refused reservation returns HTTP status 409 Conflict with the quantity still available.
+ */
+@RestController
+@RequestMapping("/api/products")
+public class StockController {
+
+    private final StockService stockService;
+
+    /**
+     * Constructs a StockController with a dependency for the stock service.
+     *
+     * @param stockService the service changing the stock of the products
+     */
+    public StockController(StockService stockService) {
+        this.stockService = stockService;
+    }
+
+    /**
+     * Reserves a quantity of a product.
+     *
+     * @param id       the ID of the product
+     * @param quantity the quantity to reserve
+     * @return a response containing the remaining stock and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the quantity is not positive,
+     *         HTTP status 404 Not Found if the product does not exist,
+     *         or HTTP status 409 Conflict if the stock is too low
+     */
+    @PostMapping("/{id}/stock/reserve")
+    public ResponseEntity<Map<String, Object>> reserveStock(@PathVariable Integer id, @RequestParam int quantity) {
+        return stockResponse(id, () -> stockService.reserve(id, quantity));
+    }
+
+    /**
+     * Releases a previously reserved quantity of a product.
+     *
+     * @param id       the ID of the product
+     * @param quantity the quantity to put back in stock
+     * @return a response containing the new stock and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the quantity is not positive or the stock would overflow,
+     *         or HTTP status 404 Not Found if the product does not exist
+     */
+    @PostMapping("/{id}/stock/release")
+    public ResponseEntity<Map<String, Object>> releaseStock(@PathVariable Integer id, @RequestParam int quantity) {
+        return stockResponse(id, () -> stockService.release(id, quantity));
+    }
+
+    /**
+     * Adds a signed quantity to the stock of a product.
+     *
+     * @param id    the ID of the product
+     * @param delta the quantity to add, negative to remove, at most {@value StockService#MAX_ADJUSTMENT} either way
+     * @return a response containing the new stock and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if the delta is out of range or the stock would overflow,
+     *         HTTP status 404 Not Found if the product does not exist,
+     *         or HTTP status 409 Conflict if the stock would become negative
+     */
+    @PostMapping("/{id}/stock/adjust")
+    public ResponseEntity<Map<String, Object>> adjustStock(@PathVariable Integer id, @RequestParam int delta) {
+        if (delta < -StockService.MAX_ADJUSTMENT || delta > StockService.MAX_ADJUSTMENT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return stockResponse(id, () -> stockService.adjust(id, delta));
+    }
+
+    /**
+     * Reserves several products at once, all or nothing.
+     *
+     * @param items the products and quantities to reserve
+     * @return a response containing the remaining stock of each product and HTTP status 200 OK,
+     *         HTTP status 400 Bad Request if a product does not exist or a quantity is not positive,
+     *         or HTTP status 409 Conflict if a product has not enough stock, in which case nothing is reserved
+     */
+    @PostMapping("/stock/reserve")
+    public ResponseEntity<Map<String, Object>> reserveBasket(@RequestBody List<StockItem> items) {
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("quantitiesInStock", stockService.reserveAll(items));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (InsufficientStockException e) {
+            return conflict(e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> stockResponse(Integer id, Supplier<Optional<Integer>> change) {
+        try {
+            return change.get().map(quantity -> {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("productId", id);
+                response.put("quantityInStock", quantity);
+                return ResponseEntity.ok(response);
+            }).orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (InsufficientStockException e) {
+            return conflict(e);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> conflict(InsufficientStockException e) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("productId", e.getProductId());
+        response.put("requested", e.getRequested());
+        response.put("available", e.getAvailable());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+}
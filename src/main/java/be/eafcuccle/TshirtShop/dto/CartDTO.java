@@ -0,0 +1,38 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import be.eafcuccle.tshirtshop.models.Prices;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A shopping cart with its lines and totals.
+ */
+public class CartDTO {
+    private final String id;
+    private final List<CartLineDTO> lines;
+    private final int itemCount;
+    private final BigDecimal total;
+
+    public CartDTO(String id, List<CartLineDTO> lines) {
+        this.id = id;
+        this.lines = lines;
+        this.itemCount = lines.stream().mapToInt(CartLineDTO::getQuantity).sum();
+        this.total = Prices.fromCents(lines.stream().mapToLong(CartLineDTO::getLineTotalCents).sum());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<CartLineDTO> getLines() {
+        return lines;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
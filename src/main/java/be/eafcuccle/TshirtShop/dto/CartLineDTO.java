@@ -0,0 +1,53 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import be.eafcuccle.tshirtshop.models.Prices;
+import java.math.BigDecimal;
+
+/**
+ * One line of a shopping cart, with the current name and price of the product.
+ */
+public class CartLineDTO {
+    private final int productId;
+    private final String name;
+    private final int unitPriceCents;
+    private final int quantity;
+    private final long lineTotalCents;
+    private final String imgPath;
+
+    public CartLineDTO(int productId, String name, int unitPriceCents, int quantity) {
+        this.productId = productId;
+        this.name = name;
+        this.unitPriceCents = unitPriceCents;
+        this.quantity = quantity;
+        this.lineTotalCents = (long) unitPriceCents * quantity;
+        this.imgPath = ProductDTO.imageUrl(productId);
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return Prices.fromCents(unitPriceCents);
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getLineTotal() {
+        return Prices.fromCents(lineTotalCents);
+    }
+
+    long getLineTotalCents() {
+        return lineTotalCents;
+    }
+
+    public String getImgPath() {
+        return imgPath;
+    }
+}
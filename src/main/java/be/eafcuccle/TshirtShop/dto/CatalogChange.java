@@ -0,0 +1,66 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A change of the catalog, as sent by the change feed. Products carry their name and price after the change,
+ * and their stock when they are created or their stock changes; categories and brands carry their name.
+ * A deleted entity only carries its ID.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogChange {
+    private final long offset;
+    private final String kind;
+    private final String type;
+    private final String id;
+    private final String name;
+    private final BigDecimal price;
+    private final Integer stock;
+    private final Instant at;
+
+    public CatalogChange(long offset, String kind, String type, String id, String name, BigDecimal price,
+                         Integer stock, Instant at) {
+        this.offset = offset;
+        this.kind = kind;
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.at = at;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Instant getAt() {
+        return at;
+    }
+}
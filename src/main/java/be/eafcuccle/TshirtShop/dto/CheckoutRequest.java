@@ -0,0 +1,37 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import be.eafcuccle.tshirtshop.models.PayementType;
+import java.math.BigDecimal;
+
+/**
+ * The checkout of a cart: the payment method and the total the client accepted.
+ */
+public class CheckoutRequest {
+    private String cartId;
+    private PayementType payementType;
+    private BigDecimal expectedTotal;
+
+    public String getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(String cartId) {
+        this.cartId = cartId;
+    }
+
+    public PayementType getPayementType() {
+        return payementType;
+    }
+
+    public void setPayementType(PayementType payementType) {
+        this.payementType = payementType;
+    }
+
+    public BigDecimal getExpectedTotal() {
+        return expectedTotal;
+    }
+
+    public void setExpectedTotal(BigDecimal expectedTotal) {
+        this.expectedTotal = expectedTotal;
+    }
+}
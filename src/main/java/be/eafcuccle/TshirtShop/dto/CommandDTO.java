@@ -0,0 +1,95 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import be.eafcuccle.tshirtshop.models.Command;
+import be.eafcuccle.tshirtshop.models.CommandLines;
+import be.eafcuccle.tshirtshop.models.CommandStatus;
+import be.eafcuccle.tshirtshop.models.DeliveryStatus;
+import be.eafcuccle.tshirtshop.models.PayementType;
+import be.eafcuccle.tshirtshop.models.Prices;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * An order with its lines and the status of its delivery, if it was created.
+ */
+public class CommandDTO {
+    private final Long id;
+    private final CommandStatus status;
+    private final PayementType payementType;
+    private final BigDecimal total;
+    private final Instant createdAt;
+    private final List<Line> lines;
+    private final DeliveryStatus deliveryStatus;
+
+    public CommandDTO(Command command, DeliveryStatus deliveryStatus) {
+        id = command.getId();
+        status = command.getStatus();
+        payementType = command.getPayementType();
+        total = Prices.fromCents(command.getTotalCents());
+        createdAt = command.getCreatedAt();
+        lines = command.getLines().stream().map(Line::new).toList();
+        this.deliveryStatus = deliveryStatus;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public CommandStatus getStatus() {
+        return status;
+    }
+
+    public PayementType getPayementType() {
+        return payementType;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public DeliveryStatus getDeliveryStatus() {
+        return deliveryStatus;
+    }
+
+    /**
+     * One ordered product.
+     */
+    public static class Line {
+        private final Integer productId;
+        private final String productName;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+
+        public Line(CommandLines line) {
+            productId = line.getProductId();
+            productName = line.getProductName();
+            quantity = line.getQuantity();
+            unitPrice = Prices.fromCents(line.getUnitPriceCents());
+        }
+
+        public Integer getProductId() {
+            return productId;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+    }
+}
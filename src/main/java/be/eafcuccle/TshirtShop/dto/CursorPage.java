@@ -0,0 +1,32 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import java.util.List;
+
+/**
+ * A page of results obtained through keyset (cursor) pagination.
+ * The {@code next} cursor is opaque to clients: it must be sent back as-is to fetch the following page,
+ * and is {@code null} when the last page has been reached.
+ *
+ * @param <T> the type of the items in the page
+ */
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String next;
+
+    public CursorPage(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public int getSize() {
+        return items.size();
+    }
+}
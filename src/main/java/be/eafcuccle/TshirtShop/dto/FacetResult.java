@@ -0,0 +1,29 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of filtered products, along with the total number of matches and the number of
+ * products for each value of each facet.
+ * The count of a facet value is computed with the filters of the other facets applied,
+ * so that it tells how many products selecting that value would add or keep.
+ */
+public class FacetResult extends CursorPage<ProductDTO> {
+    private final int total;
+    private final Map<String, Map<String, Integer>> facets;
+
+    public FacetResult(List<ProductDTO> items, String next, int total, Map<String, Map<String, Integer>> facets) {
+        super(items, next);
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,74 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import: the number of imported and rejected rows, and the reason of each rejection.
+ * Only the first errors are listed, so that a file full of invalid rows cannot exhaust the memory.
+ */
+public class ImportReport {
+    private final int maxErrors;
+    private int imported;
+    private int rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Counts rows as imported.
+     *
+     * @param count the number of imported rows
+     */
+    public void imported(int count) {
+        imported += count;
+    }
+
+    /**
+     * Counts a row as rejected and records why.
+     *
+     * @param row     the number of the row, starting at 1 with the first data row
+     * @param message the reason of the rejection
+     */
+    public void rejected(long row, String message) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * The rejection of one row.
+     */
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
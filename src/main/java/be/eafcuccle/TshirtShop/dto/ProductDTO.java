@@ -1,11 +1,13 @@
 package be.eafcuccle.tshirtshop.dto;
 
+import be.eafcuccle.tshirtshop.models.Prices;
 import be.eafcuccle.tshirtshop.models.Product;
+import java.math.BigDecimal;
 
 public class ProductDTO {
     private Integer id;
     private String name;
-    private float price;
+    private BigDecimal price;
     private String category;
     private String imgPath;
 
@@ -14,7 +16,26 @@ public class ProductDTO {
         name = p.getProductName();
         price = p.getUnitPrice();
         category = p.getCategory().getName();
-        imgPath = p.getImagePath();
+        imgPath = imageUrl(id);
+    }
+
+    public ProductDTO(Integer id, String name, int priceCents, String category) {
+        this.id = id;
+        this.name = name;
+        this.price = Prices.fromCents(priceCents);
+        this.category = category;
+        this.imgPath = imageUrl(id);
+    }
+
+    /**
+     * Returns the URL of the image variant shown in product listings,
+     * which is much lighter than the full-size image.
+     *
+     * @param productId the ID of the product
+     * @return the URL of the card-sized image of the product
+     */
+    public static String imageUrl(Integer productId) {
+        return "/api/products/image/" + productId + "?variant=card";
     }
 
     public Integer getId() {
@@ -33,11 +54,11 @@ public class ProductDTO {
         this.name = name;
     }
 
-    public float getPrice() {
+    public BigDecimal getPrice() {
         return price;
     }
 
-    public void setPrice(float price) {
+    public void setPrice(BigDecimal price) {
         this.price = price;
     }
 
@@ -0,0 +1,85 @@
+package be.eafcuccle.tshirtshop.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import be.eafcuccle.tshirtshop.models.Size;
+import java.math.BigDecimal;
+
+/**
+ * One product of a bulk import, as read from a CSV row or an NDJSON line.
+ * The category and the brand are given by name.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer stock;
+    private String color;
+    private String category;
+    private String brand;
+    private Size size;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+
+    public Size getSize() {
+        return size;
+    }
+
+    public void setSize(Size size) {
+        this.size = size;
+    }
+}
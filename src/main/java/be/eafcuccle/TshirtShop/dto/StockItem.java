@@ -0,0 +1,32 @@
+package be.eafcuccle.tshirtshop.dto;
+
+/**
+ * A quantity of one product, as reserved or released in a basket.
+ */
+public class StockItem {
+    private int productId;
+    private int quantity;
+
+    public StockItem() {}
+
+    public StockItem(int productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -1,10 +1,104 @@
 package be.eafcuccle.tshirtshop.models;
 
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
-import jakarta.persistence.Table;
-
-
+/**
+ * The Bag entity is the saved copy of a shopping cart.
+ * Carts live in memory while they are used; a bag is only written when its cart is evicted
+ * with content or checked out, and read back if the client returns to an evicted cart
+ * that was not checked out.
+ */
+@Entity
 @Table(name = "bag")
 public class Bag {
-    
+
+    /**
+     * The identifier of the cart, as handed to the client.
+     */
+    @Id
+    private String id;
+
+    /**
+     * When the cart was created.
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * When the cart was last changed.
+     */
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    /**
+     * When the cart was turned into an order, or null if it was not.
+     */
+    private Instant checkedOutAt;
+
+    /**
+     * The lines of the cart. They are saved and deleted with the bag.
+     */
+    @OneToMany(mappedBy = "bag", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<BagLine> lines = new ArrayList<>();
+
+    /**
+     * Default constructor for JPA.
+     */
+    public Bag() {}
+
+    /**
+     * Constructs a Bag with the given identifier.
+     *
+     * @param id the identifier of the cart
+     * @param createdAt when the cart was created
+     */
+    public Bag(String id, Instant createdAt) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getCheckedOutAt() {
+        return checkedOutAt;
+    }
+
+    public void setCheckedOutAt(Instant checkedOutAt) {
+        this.checkedOutAt = checkedOutAt;
+    }
+
+    public List<BagLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * Adds a line to the bag.
+     *
+     * @param line the line to add
+     */
+    public void addLine(BagLine line) {
+        line.setBag(this);
+        lines.add(line);
+    }
 }
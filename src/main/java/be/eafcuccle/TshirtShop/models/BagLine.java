@@ -1,9 +1,89 @@
 package be.eafcuccle.tshirtshop.models;
 
-import jakarta.persistence.Table;
-
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Positive;
 
+/**
+ * The BagLine entity is one product of a saved shopping cart, with its quantity.
+ * The product is referenced by ID only, so that deleting a product is never blocked by old carts.
+ */
+@Entity
 @Table(name = "bagLine")
 public class BagLine {
-    
+
+    /**
+     * The unique identifier for each line, auto-generated by the database.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The bag holding the line.
+     */
+    @ManyToOne(optional = false)
+    private Bag bag;
+
+    /**
+     * The ID of the product.
+     */
+    @Column(nullable = false)
+    private Integer productId;
+
+    /**
+     * The quantity of the product. It must be positive.
+     */
+    @Positive
+    @Column(nullable = false)
+    private int quantity;
+
+    /**
+     * The unit price of the product when the line was saved, in cents.
+     */
+    @Column(name = "unit_price_cents", nullable = false)
+    private int unitPriceCents;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public BagLine() {}
+
+    /**
+     * Constructs a BagLine with the specified attributes.
+     *
+     * @param productId the ID of the product
+     * @param quantity the quantity of the product
+     * @param unitPriceCents the unit price of the product, in cents
+     */
+    public BagLine(Integer productId, int quantity, int unitPriceCents) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Bag getBag() {
+        return bag;
+    }
+
+    public void setBag(Bag bag) {
+        this.bag = bag;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getUnitPriceCents() {
+        return unitPriceCents;
+    }
 }
@@ -1,6 +1,10 @@
 package be.eafcuccle.tshirtshop.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import be.eafcuccle.tshirtshop.service.CatalogChangePublisher;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +16,8 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "brand")
+@EntityListeners(CatalogChangePublisher.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "brand")
 public class Brand {
 
     /**
@@ -31,8 +37,11 @@ public class Brand {
     /**
      * The list of products associated with the brand.
      * When a brand is deleted, its associated products are also deleted.
+     * It is not serialized, since each product already references its brand.
      */
+    @JsonIgnore
     @OneToMany(mappedBy = "brand", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "brand-products")
     private List<Product> products = new ArrayList<>();
 
     /**
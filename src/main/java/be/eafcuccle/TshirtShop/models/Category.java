@@ -1,7 +1,10 @@
 package be.eafcuccle.tshirtshop.models;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import be.eafcuccle.tshirtshop.service.CatalogChangePublisher;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +17,8 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "category")
+@EntityListeners(CatalogChangePublisher.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 public class Category {
 
     /**
@@ -32,9 +37,11 @@ public class Category {
     /**
      * The list of products associated with the category.
      * When a category is deleted, its associated products are also deleted.
+     * The products are not serialized: they are listed page by page through the product endpoints.
      */
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-products")
+    @JsonIgnore
     private List<Product> products = new ArrayList<>();
 
     /**
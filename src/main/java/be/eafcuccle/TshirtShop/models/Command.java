@@ -1,8 +1,126 @@
 package be.eafcuccle.tshirtshop.models;
 
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
-@Table(name = "command")
+/**
+ * The Command entity represents an order placed from a shopping cart.
+ * It is created PENDING at checkout, with its stock already reserved, and its payment is processed afterwards.
+ */
+@Entity
+@Table(name = "command", indexes = {
+        @Index(name = "idx_command_status_created_at", columnList = "status, created_at")
+})
 public class Command {
-    
+
+    /**
+     * The unique identifier for each order, auto-generated by the database.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The ID of the cart the order was placed from.
+     */
+    @Column(nullable = false)
+    private String cartId;
+
+    /**
+     * The stage of the order.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CommandStatus status = CommandStatus.PENDING;
+
+    /**
+     * The payment method chosen by the client.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PayementType payementType;
+
+    /**
+     * The total price of the order, in cents.
+     */
+    @Column(name = "total_cents", nullable = false)
+    private long totalCents;
+
+    /**
+     * When the order was placed.
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * The ordered products. They are saved with the order.
+     */
+    @OneToMany(mappedBy = "command", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<CommandLines> lines = new ArrayList<>();
+
+    /**
+     * Default constructor for JPA.
+     */
+    public Command() {}
+
+    /**
+     * Constructs a pending Command.
+     *
+     * @param cartId the ID of the cart the order is placed from
+     * @param payementType the payment method chosen by the client
+     * @param createdAt when the order was placed
+     */
+    public Command(String cartId, PayementType payementType, Instant createdAt) {
+        this.cartId = cartId;
+        this.payementType = payementType;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCartId() {
+        return cartId;
+    }
+
+    public CommandStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CommandStatus status) {
+        this.status = status;
+    }
+
+    public PayementType getPayementType() {
+        return payementType;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<CommandLines> getLines() {
+        return lines;
+    }
+
+    /**
+     * Adds a line to the order and adds its price to the total.
+     *
+     * @param line the line to add
+     */
+    public void addLine(CommandLines line) {
+        line.setCommand(this);
+        lines.add(line);
+        totalCents += (long) line.getUnitPriceCents() * line.getQuantity();
+    }
 }
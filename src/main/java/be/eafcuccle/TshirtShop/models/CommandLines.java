@@ -1,8 +1,101 @@
 package be.eafcuccle.tshirtshop.models;
 
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Positive;
 
+/**
+ * The CommandLines entity is one product of an order, with the name and price it was sold at.
+ * The product is referenced by ID only, so that deleting a product never alters past orders.
+ */
+@Entity
 @Table(name = "commandLines")
 public class CommandLines {
-    
+
+    /**
+     * The unique identifier for each line, auto-generated by the database.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The order holding the line.
+     */
+    @ManyToOne(optional = false)
+    private Command command;
+
+    /**
+     * The ID of the product.
+     */
+    @Column(nullable = false)
+    private Integer productId;
+
+    /**
+     * The name of the product when it was ordered.
+     */
+    @Column(nullable = false)
+    private String productName;
+
+    /**
+     * The ordered quantity. It must be positive.
+     */
+    @Positive
+    @Column(nullable = false)
+    private int quantity;
+
+    /**
+     * The unit price of the product when it was ordered, in cents.
+     */
+    @Column(name = "unit_price_cents", nullable = false)
+    private int unitPriceCents;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public CommandLines() {}
+
+    /**
+     * Constructs a CommandLines with the specified attributes.
+     *
+     * @param productId the ID of the product
+     * @param productName the name of the product
+     * @param quantity the ordered quantity
+     * @param unitPriceCents the unit price of the product, in cents
+     */
+    public CommandLines(Integer productId, String productName, int quantity, int unitPriceCents) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    public void setCommand(Command command) {
+        this.command = command;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getUnitPriceCents() {
+        return unitPriceCents;
+    }
 }
@@ -0,0 +1,12 @@
+package be.eafcuccle.tshirtshop.models;
+
+/**
+ * The stages of an order. An order is PENDING from checkout until a worker claims it, then PAYING while its
+ * payment is processed.
+ */
+public enum CommandStatus {
+    PENDING,
+    PAYING,
+    PAID,
+    PAYMENT_FAILED
+}
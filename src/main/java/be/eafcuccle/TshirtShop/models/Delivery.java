@@ -1,8 +1,77 @@
 package be.eafcuccle.tshirtshop.models;
 
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
+import java.time.Instant;
 
+/**
+ * The Delivery entity tracks the shipping of a paid order.
+ */
+@Entity
 @Table(name = "delivery")
 public class Delivery {
-    
+
+    /**
+     * The unique identifier for each delivery, auto-generated by the database.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The order being delivered.
+     */
+    @OneToOne(optional = false)
+    @JoinColumn(unique = true)
+    private Command command;
+
+    /**
+     * The stage of the delivery.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeliveryStatus status = DeliveryStatus.CREATED;
+
+    /**
+     * When the delivery was created.
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public Delivery() {}
+
+    /**
+     * Constructs a Delivery for the given order.
+     *
+     * @param command the order to deliver
+     * @param createdAt when the delivery was created
+     */
+    public Delivery(Command command, Instant createdAt) {
+        this.command = command;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    public DeliveryStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(DeliveryStatus status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
 }
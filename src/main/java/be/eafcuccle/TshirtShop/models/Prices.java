@@ -0,0 +1,37 @@
+package be.eafcuccle.tshirtshop.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between the integer cents prices are stored and computed in, and the decimal amounts
+ * exchanged with clients. Sums and products of cents are exact, unlike those of floating-point prices.
+ */
+public final class Prices {
+
+    private Prices() {}
+
+    /**
+     * Converts an amount to cents, rounding half up to the nearest cent.
+     *
+     * @param amount the amount, or null
+     * @return the amount in cents, or 0 if it is null
+     * @throws ArithmeticException if the amount does not fit in an int of cents
+     */
+    public static int toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).intValueExact();
+    }
+
+    /**
+     * Converts cents to an amount with two decimals.
+     *
+     * @param cents the amount in cents
+     * @return the amount
+     */
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
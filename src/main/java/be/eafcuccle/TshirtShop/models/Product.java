@@ -1,12 +1,16 @@
 package be.eafcuccle.tshirtshop.models;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import be.eafcuccle.tshirtshop.models.Brand;
 import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.service.CatalogChangePublisher;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
 import java.util.Objects;
 
 /**
@@ -14,14 +18,24 @@ import java.util.Objects;
  * Each product has attributes such as name, description, price, stock quantity, color, category, brand, size, and an image path.
  */
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_category_id", columnList = "category_id, product_id"),
+        @Index(name = "idx_product_brand_id", columnList = "brand_id, product_id"),
+        @Index(name = "idx_product_unit_price_cents", columnList = "unit_price_cents, product_id"),
+        @Index(name = "idx_product_quantity_in_stock", columnList = "quantity_in_stock"),
+        @Index(name = "idx_product_name", columnList = "product_name, product_id")
+})
+@EntityListeners(CatalogChangePublisher.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 public class Product {
 
     /**
-     * The unique identifier for each product, auto-generated by the database.
+     * The unique identifier for each product, drawn from a sequence in blocks of 50 IDs.
+     * Unlike an identity column, this lets Hibernate batch the inserts, since the ID is known before the insert.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Integer productId;
 
     /**
@@ -37,18 +51,20 @@ public class Product {
     private String productDescription;
 
     /**
-     * The unit price of the product. It must be a positive value and cannot be null.
+     * The unit price of the product, in cents. It must be a positive value.
+     * Clients read and write it as a decimal {@code unitPrice}, rounded to the cent.
      */
-    @NotNull
     @Positive
-    @Column(nullable = false)
-    private float unitPrice;
+    @Column(name = "unit_price_cents", nullable = false)
+    private int unitPriceCents;
 
     /**
      * The quantity of the product in stock. It must be zero or positive.
+     * It is set when the product is created, then only changed by the atomic updates of the stock service:
+     * a full-entity update would write back a quantity read earlier and lose concurrent reservations.
      */
     @PositiveOrZero
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private int quantityInStock = 0;
 
     /**
@@ -60,9 +76,9 @@ public class Product {
 
     /**
      * The category associated with the product. This relationship is mandatory.
+     * Category listings are served by the (category_id, product_id) index.
      */
     @ManyToOne(optional = false)
-    @JsonBackReference
     private Category category;
 
     /**
@@ -100,11 +116,11 @@ public class Product {
      * @param brand the brand of the product
      * @param size the size of the product
      */
-    public Product(String productName, String productDescription, float unitPrice, int quantityInStock, String color,
+    public Product(String productName, String productDescription, BigDecimal unitPrice, int quantityInStock, String color,
                    Category category, Brand brand, Size size) {
         this.productName = productName;
         this.productDescription = productDescription;
-        this.unitPrice = unitPrice;
+        this.unitPriceCents = Prices.toCents(unitPrice);
         this.quantityInStock = quantityInStock;
         this.color = color;
         this.category = category;
@@ -138,12 +154,21 @@ public class Product {
         this.productDescription = productDescription;
     }
 
-    public float getUnitPrice() {
-        return unitPrice;
+    public BigDecimal getUnitPrice() {
+        return Prices.fromCents(unitPriceCents);
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPriceCents = Prices.toCents(unitPrice);
+    }
+
+    @JsonIgnore
+    public int getUnitPriceCents() {
+        return unitPriceCents;
     }
 
-    public void setUnitPrice(float unitPrice) {
-        this.unitPrice = unitPrice;
+    public void setUnitPriceCents(int unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
     }
 
     public int getQuantityInStock() {
@@ -0,0 +1,24 @@
+package be.eafcuccle.tshirtshop.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import be.eafcuccle.tshirtshop.models.Bag;
+import java.util.Optional;
+
+/**
+ * Repository interface for the {@link Bag} entity, providing CRUD operations
+ * and additional custom query methods.
+ */
+@Repository
+public interface BagRepository extends JpaRepository<Bag, String> {
+
+    /**
+     * Finds a bag by its ID along with its lines.
+     *
+     * @param id the ID of the bag
+     * @return an {@link Optional} containing the bag with its lines, or empty if not found
+     */
+    @Query("SELECT b FROM Bag b LEFT JOIN FETCH b.lines WHERE b.id = :id")
+    Optional<Bag> findWithLinesById(String id);
+}
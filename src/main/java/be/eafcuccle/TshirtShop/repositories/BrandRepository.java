@@ -1,8 +1,11 @@
 package be.eafcuccle.tshirtshop.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import be.eafcuccle.tshirtshop.models.Brand;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,4 +22,23 @@ public interface BrandRepository extends JpaRepository<Brand, Integer> {
      * @return an {@link Optional} containing the Brand if found, or empty if not found
      */
     Optional<Brand> findByName(String name);
+
+    /**
+     * Retrieves the ID and name of every brand along with its number of products.
+     * This is the aggregate the in-memory brand counters are reconciled against.
+     *
+     * @return a list of Object arrays holding the brand ID, name and product count
+     */
+    @Query("SELECT b.id, b.name, COUNT(p) FROM Brand b LEFT JOIN Product p ON p.brand.id = b.id GROUP BY b.id, b.name")
+    List<Object[]> countProductsByBrand();
+
+    /**
+     * Finds the brands whose ID is greater than the given one, ordered by ID.
+     * This is the keyset query behind the paginated brand listing.
+     *
+     * @param id       the ID of the last brand of the previous page
+     * @param pageable the page size
+     * @return the next brands ordered by ascending ID
+     */
+    List<Brand> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
 }
@@ -1,7 +1,11 @@
 package be.eafcuccle.tshirtshop.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import be.eafcuccle.tshirtshop.models.Category;
 import java.util.List;
@@ -17,12 +21,26 @@ public interface CategoryRepository extends JpaRepository<Category, String> {
     /**
      * Retrieves the names of all categories along with the count of products in each category.
      * This method uses a custom query to join categories with products and count products per category.
+     * The result is kept in the query cache until the category or product table changes.
      *
      * @return a list of Object arrays where each array contains the category name and the product count
      */
     @Query("SELECT c.name, COUNT(p) FROM Category c LEFT JOIN Product p ON p.category.id = c.id GROUP BY c.name")
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "query-category-counts")
+    })
     List<Object[]> findCategoryNamesWithProductCounts();
 
+    /**
+     * Retrieves the ID and name of every category along with its number of products.
+     * This is the aggregate the in-memory category counters are reconciled against.
+     *
+     * @return a list of Object arrays holding the category ID, name and product count
+     */
+    @Query("SELECT c.id, c.name, COUNT(p) FROM Category c LEFT JOIN Product p ON p.category.id = c.id GROUP BY c.id, c.name")
+    List<Object[]> countProductsByCategory();
+
     /**
      * Finds a category by its unique name.
      *
@@ -30,4 +48,14 @@ public interface CategoryRepository extends JpaRepository<Category, String> {
      * @return an {@link Optional} containing the Category if found, or empty if not found
      */
     Optional<Category> findByName(String name);
+
+    /**
+     * Finds the categories whose ID is greater than the given one, ordered by ID.
+     * This is the keyset query behind the paginated category listing.
+     *
+     * @param id       the ID of the last category of the previous page
+     * @param pageable the page size
+     * @return the next categories ordered by ascending ID
+     */
+    List<Category> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
 }
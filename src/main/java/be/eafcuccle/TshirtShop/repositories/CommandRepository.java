@@ -0,0 +1,53 @@
+package be.eafcuccle.tshirtshop.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import be.eafcuccle.tshirtshop.models.Command;
+import be.eafcuccle.tshirtshop.models.CommandStatus;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the {@link Command} entity, providing CRUD operations
+ * and additional custom query methods.
+ */
+@Repository
+public interface CommandRepository extends JpaRepository<Command, Long> {
+
+    /**
+     * Finds an order by its ID and locks its row until the end of the transaction,
+     * so that it is never processed twice at the same time.
+     *
+     * @param id the ID of the order
+     * @return an {@link Optional} containing the order if found, or empty if not found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Command c WHERE c.id = :id")
+    Optional<Command> findForUpdateById(Long id);
+
+    /**
+     * Finds an order by its ID along with its lines.
+     *
+     * @param id the ID of the order
+     * @return an {@link Optional} containing the order with its lines, or empty if not found
+     */
+    @Query("SELECT c FROM Command c LEFT JOIN FETCH c.lines WHERE c.id = :id")
+    Optional<Command> findWithLinesById(Long id);
+
+    /**
+     * Finds the IDs of the orders in given statuses placed before a given time, oldest first.
+     *
+     * @param statuses the statuses of the orders
+     * @param before   the time the orders were placed before
+     * @param pageable the maximum number of IDs
+     * @return the IDs of the matching orders
+     */
+    @Query("SELECT c.id FROM Command c WHERE c.status IN :statuses AND c.createdAt < :before ORDER BY c.createdAt ASC")
+    List<Long> findIdsByStatusInCreatedBefore(Collection<CommandStatus> statuses, Instant before, Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package be.eafcuccle.tshirtshop.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import be.eafcuccle.tshirtshop.models.Delivery;
+import java.util.Optional;
+
+/**
+ * Repository interface for the {@link Delivery} entity, providing CRUD operations
+ * and additional custom query methods.
+ */
+@Repository
+public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
+
+    /**
+     * Finds the delivery of an order.
+     *
+     * @param commandId the ID of the order
+     * @return an {@link Optional} containing the delivery if found, or empty if not found
+     */
+    Optional<Delivery> findByCommandId(Long commandId);
+}
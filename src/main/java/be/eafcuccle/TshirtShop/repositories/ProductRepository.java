@@ -1,8 +1,14 @@
 package be.eafcuccle.tshirtshop.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
 import be.eafcuccle.tshirtshop.models.Product;
 import java.util.List;
 import java.util.Optional;
@@ -16,20 +22,27 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
 
     /**
      * Finds all products within a specified price range.
+     * The API answers price ranges from the in-memory price index instead.
      *
-     * @param minPrice the minimum price
-     * @param maxPrice the maximum price
+     * @param minCents the minimum price, in cents
+     * @param maxCents the maximum price, in cents
      * @return a list of products within the specified price range
      */
-    List<Product> findProductsByUnitPriceBetween(float minPrice, float maxPrice);
+    List<Product> findProductsByUnitPriceCentsBetween(int minCents, int maxCents);
 
     /**
      * Finds a product by its ID with detailed information, including associated category and brand.
+     * The result is kept in the query cache until the product, category or brand table changes.
      *
      * @param id the product ID
      * @return an {@link Optional} containing the product with category and brand, or empty if not found
      */
     @Query("SELECT p FROM Product p JOIN FETCH p.category JOIN FETCH p.brand WHERE p.productId = :id")
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "query-product-details")
+    })
+    @Transactional(readOnly = true)
     Optional<Product> findDetailedProductById(Integer id);
 
     /**
@@ -69,6 +82,68 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
      *
      * @return a list of products sorted by ascending unit price
      */
-    List<Product> findAllByOrderByUnitPriceAsc();
+    List<Product> findAllByOrderByUnitPriceCentsAsc();
+
+    /**
+     * Counts the products of each size. Sizes without any product are not returned.
+     *
+     * @return a list of Object arrays holding the size and the product count
+     */
+    @Query("SELECT p.size, COUNT(p) FROM Product p GROUP BY p.size")
+    List<Object[]> countProductsBySize();
+
+    /**
+     * Finds the products whose ID is greater than the given one, ordered by ID.
+     * This is the keyset query behind the paginated product listing.
+     *
+     * @param productId the ID of the last product of the previous page
+     * @param pageable  the page size
+     * @return the next products ordered by ascending ID
+     */
+    List<Product> findByProductIdGreaterThanOrderByProductIdAsc(Integer productId, Pageable pageable);
+
+    /**
+     * Finds the products following the given (unit price, ID) key, ordered by unit price then ID.
+     *
+     * @param unitPriceCents the unit price of the last product of the previous page, in cents
+     * @param productId      the ID of the last product of the previous page
+     * @param pageable       the page size
+     * @return the next products ordered by ascending unit price
+     */
+    @Query("SELECT p FROM Product p WHERE p.unitPriceCents > :unitPriceCents OR (p.unitPriceCents = :unitPriceCents AND p.productId > :productId) ORDER BY p.unitPriceCents ASC, p.productId ASC")
+    List<Product> findPageOrderedByUnitPrice(int unitPriceCents, Integer productId, Pageable pageable);
+
+    /**
+     * Finds the products following the given (name, ID) key, ordered by name then ID.
+     *
+     * @param productName the name of the last product of the previous page
+     * @param productId   the ID of the last product of the previous page
+     * @param pageable    the page size
+     * @return the next products ordered by ascending name
+     */
+    @Query("SELECT p FROM Product p WHERE p.productName > :productName OR (p.productName = :productName AND p.productId > :productId) ORDER BY p.productName ASC, p.productId ASC")
+    List<Product> findPageOrderedByProductName(String productName, Integer productId, Pageable pageable);
+
+    /**
+     * Finds the products of a category whose ID is greater than the given one, ordered by ID,
+     * directly as DTOs. The projection reads the five listed columns in a single query,
+     * without loading the category's product collection or hydrating the entities.
+     *
+     * @param categoryId the ID of the category
+     * @param productId  the ID of the last product of the previous page
+     * @param pageable   the page size
+     * @return the next products of the category ordered by ascending ID
+     */
+    @Query("SELECT new be.eafcuccle.tshirtshop.dto.ProductDTO(p.productId, p.productName, p.unitPriceCents, c.name) FROM Product p JOIN p.category c WHERE c.id = :categoryId AND p.productId > :productId ORDER BY p.productId ASC")
+    List<ProductDTO> findDTOPageByCategoryId(String categoryId, Integer productId, Pageable pageable);
+
+    /**
+     * Reads the quantity in stock of a product, without loading the entity.
+     *
+     * @param productId the ID of the product
+     * @return an {@link Optional} containing the quantity in stock, or empty if the product does not exist
+     */
+    @Query("SELECT p.quantityInStock FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findQuantityInStock(Integer productId);
 
 }
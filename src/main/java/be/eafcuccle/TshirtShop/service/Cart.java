@@ -0,0 +1,77 @@
+package be.eafcuccle.tshirtshop.service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable in-memory shopping cart: the quantity of each product, in the order they were added.
+ * Every change returns a new cart, so a cart can be read without locking while another request replaces it.
+ */
+public final class Cart {
+    private final String id;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+    private final Map<Integer, Integer> quantities;
+    private final boolean saved;
+
+    Cart(String id, Instant createdAt, Instant updatedAt, Map<Integer, Integer> quantities, boolean saved) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.quantities = Collections.unmodifiableMap(new LinkedHashMap<>(quantities));
+        this.saved = saved;
+    }
+
+    /**
+     * Returns a copy of this cart with the quantity of a product replaced.
+     *
+     * @param productId the ID of the product
+     * @param quantity  the new quantity, or 0 to remove the product
+     * @return the updated cart
+     */
+    Cart withQuantity(int productId, int quantity) {
+        Map<Integer, Integer> updated = new LinkedHashMap<>(quantities);
+        if (quantity == 0) {
+            updated.remove(productId);
+        } else {
+            updated.put(productId, quantity);
+        }
+        return new Cart(id, createdAt, Instant.now(), updated, saved);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Returns the quantity of each product.
+     *
+     * @return an unmodifiable map of the quantities keyed by product ID
+     */
+    public Map<Integer, Integer> getQuantities() {
+        return quantities;
+    }
+
+    public boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    /**
+     * Tells whether this cart was read back from the database, so that a copy of it may still be saved there.
+     *
+     * @return true if the cart was loaded from the {@code bag} tables
+     */
+    boolean isSaved() {
+        return saved;
+    }
+}
@@ -0,0 +1,286 @@
+package be.eafcuccle.tshirtshop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import be.eafcuccle.tshirtshop.dto.CartDTO;
+import be.eafcuccle.tshirtshop.dto.CartLineDTO;
+import be.eafcuccle.tshirtshop.models.Bag;
+import be.eafcuccle.tshirtshop.models.BagLine;
+import be.eafcuccle.tshirtshop.repositories.BagRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Service holding the shopping carts in memory.
+ * <p>
+ * Carts are kept in a Caffeine cache, a concurrent map whose entries expire after an idle timeout and whose
+ * total number of lines is bounded. Browsing and editing a cart never touches the database: product names and
+ * prices come from the {@link ProductSearchIndex}. A cart is only written to the {@code bag} tables when it is
+ * evicted with content, checked out, or when the application stops, and it is read back if its client returns
+ * later without having checked it out. A cart read back and then emptied has its saved copy deleted instead,
+ * so that the removed lines do not come back. An evicted cart is saved while the eviction holds its entry, so a
+ * request for it waits for the save before reading it back.
+ */
+@Service
+public class CartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+    private static final int MAX_QUANTITY = 999;
+
+    private final BagRepository bagRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Cart> carts;
+
+    /**
+     * Constructs a CartService.
+     *
+     * @param bagRepository      the repository of the saved carts
+     * @param productSearchIndex the in-memory copy of the products
+     * @param transactionManager the transaction manager of the cart saves
+     * @param idleTimeout        how long an unused cart stays in memory
+     * @param maxLines           the number of cart lines held in memory, each cart counting one more line
+     */
+    @Autowired
+    public CartService(BagRepository bagRepository, ProductSearchIndex productSearchIndex,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${tshirtshop.carts.idle-timeout:30m}") Duration idleTimeout,
+                       @Value("${tshirtshop.carts.max-lines:1000000}") long maxLines) {
+        this(bagRepository, productSearchIndex, transactionManager, idleTimeout, maxLines,
+                Ticker.systemTicker(), Scheduler.systemScheduler());
+    }
+
+    /**
+     * Constructs a CartService whose carts expire on the given ticker and scheduler, so that tests can expire them.
+     */
+    CartService(BagRepository bagRepository, ProductSearchIndex productSearchIndex,
+                PlatformTransactionManager transactionManager, Duration idleTimeout, long maxLines,
+                Ticker ticker, Scheduler scheduler) {
+        this.bagRepository = bagRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.carts = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumWeight(maxLines)
+                .weigher((String id, Cart cart) -> 1 + cart.getQuantities().size())
+                .ticker(ticker)
+                .scheduler(scheduler)
+                .evictionListener((String id, Cart cart, RemovalCause cause) -> {
+                    if (cart != null) {
+                        save(cart);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Creates an empty cart.
+     *
+     * @return the new cart
+     */
+    public CartDTO create() {
+        Instant now = Instant.now();
+        Cart cart = new Cart(UUID.randomUUID().toString(), now, now, Map.of(), false);
+        carts.put(cart.getId(), cart);
+        return toDTO(cart);
+    }
+
+    /**
+     * Finds a cart, reading it back from the database if it was evicted.
+     *
+     * @param cartId the ID of the cart
+     * @return an {@link Optional} containing the cart if found, or empty if not found
+     */
+    public Optional<CartDTO> find(String cartId) {
+        return lookup(cartId).map(this::toDTO);
+    }
+
+    /**
+     * Adds a quantity of a product to a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @param quantity  the quantity to add
+     * @return an {@link Optional} containing the updated cart, or empty if the cart does not exist
+     * @throws IllegalArgumentException if the product does not exist or the quantity is invalid
+     */
+    public Optional<CartDTO> addProduct(String cartId, int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be positive");
+        }
+        return update(cartId, productId, current -> current + quantity);
+    }
+
+    /**
+     * Sets the quantity of a product in a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @param quantity  the new quantity, or 0 to remove the product
+     * @return an {@link Optional} containing the updated cart, or empty if the cart does not exist
+     * @throws IllegalArgumentException if the product does not exist or the quantity is invalid
+     */
+    public Optional<CartDTO> setQuantity(String cartId, int productId, int quantity) {
+        return update(cartId, productId, current -> quantity);
+    }
+
+    /**
+     * Removes a product from a cart.
+     *
+     * @param cartId    the ID of the cart
+     * @param productId the ID of the product
+     * @return an {@link Optional} containing the updated cart, or empty if the cart does not exist
+     */
+    public Optional<CartDTO> removeProduct(String cartId, int productId) {
+        return update(cartId, productId, current -> 0);
+    }
+
+    /**
+     * Deletes a cart, from memory and from the database.
+     *
+     * @param cartId the ID of the cart
+     * @return true if the cart existed, false otherwise
+     */
+    public boolean delete(String cartId) {
+        boolean inMemory = carts.asMap().remove(cartId) != null;
+        Boolean saved = transactionTemplate.execute(status -> {
+            if (!bagRepository.existsById(cartId)) {
+                return false;
+            }
+            bagRepository.deleteById(cartId);
+            return true;
+        });
+        return inMemory || Boolean.TRUE.equals(saved);
+    }
+
+    /**
+     * Saves every cart when the application stops, so that a restart does not lose them.
+     */
+    @PreDestroy
+    public void saveAll() {
+        carts.asMap().values().forEach(this::save);
+    }
+
+    /**
+     * Returns the current state of a cart, for checkout.
+     *
+     * @param cartId the ID of the cart
+     * @return an {@link Optional} containing the cart if found, or empty if not found
+     */
+    Optional<Cart> snapshot(String cartId) {
+        return lookup(cartId);
+    }
+
+    /**
+     * Saves a cart as checked out, in the caller's transaction. A checked-out cart is never read back.
+     *
+     * @param cart         the cart turned into an order
+     * @param checkedOutAt when the order was placed
+     */
+    void saveCheckedOut(Cart cart, Instant checkedOutAt) {
+        writeBag(cart, checkedOutAt);
+    }
+
+    /**
+     * Drops a cart from memory without saving it, once its checkout is committed.
+     *
+     * @param cartId the ID of the cart
+     */
+    void forget(String cartId) {
+        carts.invalidate(cartId);
+    }
+
+    private Optional<Cart> lookup(String cartId) {
+        return Optional.ofNullable(carts.get(cartId, this::load));
+    }
+
+    /**
+     * Applies a change to the quantity of one product. The change is atomic for the cart: two concurrent
+     * changes of the same cart are applied one after the other, each on the result of the other.
+     */
+    private Optional<CartDTO> update(String cartId, int productId, IntUnaryOperator change) {
+        Optional<Cart> existing = lookup(cartId);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Cart updated = carts.asMap().compute(cartId, (id, current) -> {
+            Cart cart = current == null ? existing.get() : current;
+            int quantity = change.applyAsInt(cart.getQuantities().getOrDefault(productId, 0));
+            if (quantity < 0 || quantity > MAX_QUANTITY) {
+                throw new IllegalArgumentException("The quantity must be between 0 and " + MAX_QUANTITY);
+            }
+            if (quantity > 0 && productSearchIndex.find(productId).isEmpty()) {
+                throw new IllegalArgumentException("Unknown product: " + productId);
+            }
+            return cart.withQuantity(productId, quantity);
+        });
+        return Optional.of(toDTO(updated));
+    }
+
+    /**
+     * Reads an evicted cart back from the database.
+     *
+     * @return the cart, or null if it was never saved or was checked out
+     */
+    private Cart load(String cartId) {
+        return bagRepository.findWithLinesById(cartId).filter(bag -> bag.getCheckedOutAt() == null).map(bag -> {
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            bag.getLines().forEach(line -> quantities.put(line.getProductId(), line.getQuantity()));
+            return new Cart(bag.getId(), bag.getCreatedAt(), bag.getUpdatedAt(), quantities, true);
+        }).orElse(null);
+    }
+
+    /**
+     * Writes an evicted cart to the database. An empty cart is not written, and its saved copy, if it was read
+     * back from one, is deleted. A failure is logged, since there is no request to report it to.
+     */
+    private void save(Cart cart) {
+        try {
+            if (!cart.isEmpty()) {
+                writeBag(cart, null);
+            } else if (cart.isSaved()) {
+                transactionTemplate.executeWithoutResult(status -> bagRepository.findById(cart.getId())
+                        .filter(bag -> bag.getCheckedOutAt() == null)
+                        .ifPresent(bagRepository::delete));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not save the cart {}", cart.getId(), e);
+        }
+    }
+
+    /**
+     * Writes a cart to the database, replacing its previous copy. Products deleted since they were added are dropped.
+     */
+    private void writeBag(Cart cart, Instant checkedOutAt) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Bag bag = bagRepository.findWithLinesById(cart.getId())
+                    .orElseGet(() -> new Bag(cart.getId(), cart.getCreatedAt()));
+            bag.getLines().clear();
+            cart.getQuantities().forEach((productId, quantity) -> productSearchIndex.find(productId)
+                    .ifPresent(product -> bag.addLine(new BagLine(productId, quantity, product.getPriceCents()))));
+            bag.setUpdatedAt(cart.getUpdatedAt());
+            bag.setCheckedOutAt(checkedOutAt);
+            bagRepository.save(bag);
+        });
+    }
+
+    private CartDTO toDTO(Cart cart) {
+        List<CartLineDTO> lines = new ArrayList<>();
+        cart.getQuantities().forEach((productId, quantity) -> productSearchIndex.find(productId)
+                .ifPresent(product -> lines.add(new CartLineDTO(productId, product.getName(), product.getPriceCents(), quantity))));
+        return new CartDTO(cart.getId(), lines);
+    }
+}
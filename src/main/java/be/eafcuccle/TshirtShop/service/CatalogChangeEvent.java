@@ -0,0 +1,76 @@
+package be.eafcuccle.tshirtshop.service;
+
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+
+/**
+ * Application event published whenever a product, a category or a brand is created, updated or deleted.
+ * It is published from the JPA lifecycle callbacks, so it covers every write path, including cascades.
+ * Listeners interested in committed data only should use a transactional event listener.
+ */
+public class CatalogChangeEvent {
+
+    /**
+     * The kinds of catalog entities.
+     */
+    public enum Kind {
+        PRODUCT, CATEGORY, BRAND
+    }
+
+    /**
+     * The kinds of changes.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Kind kind;
+    private final Type type;
+    private final Object entity;
+
+    /**
+     * Constructs a CatalogChangeEvent for the given entity.
+     *
+     * @param type   the kind of change
+     * @param entity the product, category or brand that changed
+     * @throws IllegalArgumentException if the entity is not a catalog entity
+     */
+    public CatalogChangeEvent(Type type, Object entity) {
+        if (entity instanceof Product) {
+            this.kind = Kind.PRODUCT;
+        } else if (entity instanceof Category) {
+            this.kind = Kind.CATEGORY;
+        } else if (entity instanceof Brand) {
+            this.kind = Kind.BRAND;
+        } else {
+            throw new IllegalArgumentException("Entity not recognized: " + entity);
+        }
+        this.type = type;
+        this.entity = entity;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public Product getProduct() {
+        return (Product) entity;
+    }
+
+    public Category getCategory() {
+        return (Category) entity;
+    }
+
+    public Brand getBrand() {
+        return (Brand) entity;
+    }
+}
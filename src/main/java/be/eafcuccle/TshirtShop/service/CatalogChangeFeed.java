@@ -0,0 +1,377 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import be.eafcuccle.tshirtshop.dto.CatalogChange;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans the committed changes of the {@link CatalogOutbox} out to the clients of the Server-Sent Events feed.
+ * <p>
+ * A single thread reads the outbox in offset order, when a new {@link CatalogVersion} is published and at a
+ * fixed interval, and keeps the latest changes in a bounded in-memory buffer. Auto-increment offsets are
+ * allocated at insert time but become visible at commit time, so a missing offset may still be committing:
+ * the reader waits up to the gap timeout for it before skipping it as rolled back. As it may instead have
+ * committed later, a client whose offset crosses a skipped one is sent a {@code reset} event, at the latest
+ * before the change following the last skipped offset.
+ * <p>
+ * Every client only holds its offset, and is sent what follows it by a small pool of sender threads, in
+ * batches, one batch per turn. A client that reads slowly just falls behind: once its offset has left the
+ * buffer, its changes are read back from the outbox, so no client makes the others wait or the memory grow.
+ * A client resumes from the offset of the last change it received, sent by browsers as {@code Last-Event-ID}.
+ * If changes after that offset were purged, or the offset is unknown, the client is sent a {@code reset} event
+ * and must reload the catalog.
+ */
+@Service
+public class CatalogChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeFeed.class);
+
+    private final CatalogOutbox catalogOutbox;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final int bufferSize;
+    private final int batchSize;
+    private final int maxSubscribers;
+    private final ConcurrentSkipListMap<Long, CatalogChange> recent = new ConcurrentSkipListMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pollPending = new AtomicBoolean();
+    private final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ThreadPoolExecutor sendExecutor;
+    private int recentSize;
+    private long gapSince;
+    private volatile long lastSkipped;
+    private volatile long dispatched;
+    private volatile long bufferFloor;
+    private volatile boolean started;
+
+    /**
+     * Constructs the CatalogChangeFeed.
+     *
+     * @param catalogOutbox  the outbox the changes are read from
+     * @param pollInterval   the delay between two reads of the outbox without a new catalog version
+     * @param gapTimeout     how long a missing offset is waited for before it is skipped
+     * @param timeout        how long a client stays connected before it has to reconnect
+     * @param heartbeat      the interval of the comments keeping idle connections open
+     * @param bufferSize     the number of latest changes kept in memory
+     * @param batchSize      the number of changes sent to a client per turn
+     * @param maxSubscribers the maximum number of connected clients
+     * @param senderThreads  the number of threads sending the changes
+     */
+    public CatalogChangeFeed(CatalogOutbox catalogOutbox,
+                             @Value("${tshirtshop.changes.poll-interval:PT1S}") Duration pollInterval,
+                             @Value("${tshirtshop.changes.gap-timeout:PT2S}") Duration gapTimeout,
+                             @Value("${tshirtshop.changes.timeout:PT30M}") Duration timeout,
+                             @Value("${tshirtshop.changes.heartbeat:PT15S}") Duration heartbeat,
+                             @Value("${tshirtshop.changes.buffer:10000}") int bufferSize,
+                             @Value("${tshirtshop.changes.batch:100}") int batchSize,
+                             @Value("${tshirtshop.changes.max-subscribers:1000}") int maxSubscribers,
+                             @Value("${tshirtshop.changes.sender-threads:4}") int senderThreads) {
+        this.catalogOutbox = catalogOutbox;
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.maxSubscribers = maxSubscribers;
+        this.sendExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-changes-send");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Starts reading the outbox after its newest change, once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatched = catalogOutbox.newestOffset();
+        bufferFloor = dispatched;
+        started = true;
+        pollExecutor.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        pollExecutor.scheduleAtFixedRate(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the outbox as soon as a write committed.
+     *
+     * @param stamp the new catalog version
+     */
+    @EventListener
+    public void onVersionChange(CatalogVersion.Stamp stamp) {
+        if (started && pollPending.compareAndSet(false, true)) {
+            try {
+                pollExecutor.execute(this::poll);
+            } catch (RejectedExecutionException e) {
+                pollPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Connects a client to the feed.
+     *
+     * @param after the offset of the last change the client received, or null to receive the next changes only
+     * @return the emitter of the client's events
+     * @throws IllegalStateException if the feed is not started yet or has too many clients
+     */
+    public SseEmitter subscribe(Long after) {
+        if (!started) {
+            throw new IllegalStateException("The catalog change feed is not started yet");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many clients on the catalog change feed");
+        }
+        long current = dispatched;
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), current);
+        if (after != null && after != current) {
+            long oldest = catalogOutbox.oldestOffset().orElse(current + 1);
+            if (after < current && after >= oldest - 1) {
+                subscriber.cursor = after;
+            } else {
+                subscriber.reset = true;
+            }
+        }
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> close(subscriber));
+        subscriber.emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        signal(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return the number of clients
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Disconnects every client and stops the threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        started = false;
+        pollExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+        subscribers.forEach(this::close);
+    }
+
+    /**
+     * Appends the committed changes following the last dispatched one to the buffer, in offset order,
+     * then wakes the clients up. Only runs on the poll thread.
+     */
+    private void poll() {
+        pollPending.set(false);
+        try {
+            List<CatalogChange> changes;
+            do {
+                changes = catalogOutbox.findAfter(dispatched, Long.MAX_VALUE, batchSize);
+                int appended = 0;
+                for (CatalogChange change : changes) {
+                    if (change.getOffset() != dispatched + 1) {
+                        if (!gapExpired()) {
+                            break;
+                        }
+                        logger.warn("Skipped the catalog changes {} to {}, not committed after {}", dispatched + 1,
+                                change.getOffset() - 1, gapTimeout);
+                        lastSkipped = change.getOffset() - 1;
+                    }
+                    gapSince = 0;
+                    append(change);
+                    appended++;
+                }
+                if (appended > 0) {
+                    subscribers.forEach(this::signal);
+                }
+                if (appended < changes.size()) {
+                    return;
+                }
+            } while (changes.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read the catalog outbox after offset {}", dispatched, e);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.nanoTime();
+        if (gapSince == 0) {
+            gapSince = now;
+            return false;
+        }
+        return now - gapSince >= gapTimeout.toNanos();
+    }
+
+    /**
+     * Adds a change to the buffer, raising the floor of the buffer before dropping its oldest changes,
+     * so that a client reading the buffer can tell when a change it needs was dropped meanwhile.
+     */
+    private void append(CatalogChange change) {
+        recent.put(change.getOffset(), change);
+        recentSize++;
+        dispatched = change.getOffset();
+        while (recentSize > bufferSize) {
+            bufferFloor = recent.firstKey();
+            recent.pollFirstEntry();
+            recentSize--;
+        }
+    }
+
+    /**
+     * Returns the dispatched changes following an offset, from the buffer when it still holds them,
+     * otherwise from the outbox.
+     */
+    private List<CatalogChange> changesAfter(long cursor) {
+        long upTo = dispatched;
+        if (cursor >= bufferFloor) {
+            List<CatalogChange> changes = new ArrayList<>();
+            for (CatalogChange change : recent.tailMap(cursor, false).values()) {
+                if (changes.size() == batchSize || change.getOffset() > upTo) {
+                    break;
+                }
+                changes.add(change);
+            }
+            if (cursor >= bufferFloor) {
+                return changes;
+            }
+        }
+        return catalogOutbox.findAfter(cursor, upTo, batchSize);
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            signal(subscriber);
+        }
+    }
+
+    /**
+     * Schedules a turn of the client, unless one is already scheduled or running, which will then run again.
+     */
+    private void signal(Subscriber subscriber) {
+        if (subscriber.pending.getAndIncrement() == 0) {
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        try {
+            sendExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            close(subscriber);
+        }
+    }
+
+    /**
+     * Sends the client what follows its offset, one batch per turn: a client with more to read is scheduled
+     * again behind the others instead of keeping the thread.
+     */
+    private void drain(Subscriber subscriber) {
+        int missed = subscriber.pending.get();
+        while (true) {
+            List<CatalogChange> changes;
+            try {
+                changes = changesAfter(subscriber.cursor);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to read the catalog changes after offset {}", subscriber.cursor, e);
+                close(subscriber);
+                return;
+            }
+            if (!send(subscriber, changes)) {
+                return;
+            }
+            if (changes.size() == batchSize) {
+                schedule(subscriber);
+                return;
+            }
+            missed = subscriber.pending.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, List<CatalogChange> changes) {
+        try {
+            if (!changes.isEmpty() && subscriber.cursor < lastSkipped
+                    && changes.get(changes.size() - 1).getOffset() > lastSkipped) {
+                subscriber.reset = true;
+            }
+            if (subscriber.reset) {
+                subscriber.reset = false;
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(subscriber.cursor))
+                        .name("reset")
+                        .data(subscriber.cursor));
+            }
+            for (CatalogChange change : changes) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getOffset()))
+                        .name("change")
+                        .data(change, MediaType.APPLICATION_JSON));
+                subscriber.cursor = change.getOffset();
+            }
+            if (subscriber.heartbeat) {
+                subscriber.heartbeat = false;
+                if (changes.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber);
+            return false;
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed.
+        }
+    }
+
+    /**
+     * A connected client and the offset of the last change it was sent.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long cursor;
+        private volatile boolean reset;
+        private volatile boolean heartbeat;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener turning the lifecycle callbacks of the catalog entities into
+ * {@link CatalogChangeEvent}s. Hibernate obtains this listener from the Spring context.
+ */
+@Component
+public class CatalogChangePublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a CatalogChangePublisher publishing through the given publisher.
+     *
+     * @param eventPublisher the application event publisher
+     */
+    public CatalogChangePublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void created(Object entity) {
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.CREATED, entity));
+    }
+
+    @PostUpdate
+    public void updated(Object entity) {
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.UPDATED, entity));
+    }
+
+    @PostRemove
+    public void deleted(Object entity) {
+        eventPublisher.publishEvent(new CatalogChangeEvent(CatalogChangeEvent.Type.DELETED, entity));
+    }
+}
@@ -0,0 +1,375 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.models.Size;
+import be.eafcuccle.tshirtshop.repositories.BrandRepository;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory number of products per category, per brand and per size.
+ * <p>
+ * The counters are built when the application is ready, then adjusted from the {@link CatalogChangeEvent}s
+ * of committed transactions. The category, brand and size of every product are remembered, so that a product
+ * moved to another category or brand is taken off its previous one. A scheduled job compares the counters with
+ * grouped queries and repairs any drift, for instance after rows were changed outside of JPA. A change is
+ * counted as started when Hibernate flushes it and as completed once its transaction ends, so the job only
+ * compares when no change is in flight: a committed change the listener has not applied yet would otherwise be
+ * both in the query results and applied afterwards. Until the counters are built, the counts are read from the
+ * grouped queries.
+ */
+@Service
+public class CatalogCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCounters.class);
+
+    private final CatalogPageService catalogPageService;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IncrementalBuild build;
+    private final Map<Integer, Membership> memberships = new HashMap<>();
+    private final Counts counts = new Counts();
+    private final AtomicLong startedChanges = new AtomicLong();
+    private final AtomicLong completedChanges = new AtomicLong();
+
+    /**
+     * Constructs the CatalogCounters with the repositories they are built and reconciled from.
+     *
+     * @param catalogPageService the service reading the products in batches
+     * @param productRepository  the repository for Product entities
+     * @param categoryRepository the repository for Category entities
+     * @param brandRepository    the repository for Brand entities
+     */
+    public CatalogCounters(CatalogPageService catalogPageService, ProductRepository productRepository,
+                           CategoryRepository categoryRepository, BrandRepository brandRepository) {
+        this.build = new IncrementalBuild(catalogPageService, lock.writeLock());
+        this.catalogPageService = catalogPageService;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+    }
+
+    /**
+     * Builds the counters from the database: the category and brand names first, then the products.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            categoryRepository.findAll().forEach(category -> counts.nameCategory(category.getId(), category.getName()));
+            brandRepository.findAll().forEach(brand -> counts.nameBrand(brand.getId(), brand.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        build.run(batch -> batch.forEach(product -> move(product.getProductId(), Membership.of(product))));
+        logger.info("Counted the products by category, brand and size in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Counts a catalog change as started, in the transaction that makes it.
+     *
+     * @param event the change
+     */
+    @EventListener
+    public void onCatalogChangeStarted(CatalogChangeEvent event) {
+        startedChanges.incrementAndGet();
+    }
+
+    /**
+     * Counts a catalog change as completed once its transaction ended, whether it committed or not,
+     * after {@link #onCatalogChange} applied it.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onCatalogChangeCompleted(CatalogChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            completedChanges.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed catalog change to the counters.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (event.getKind() == CatalogChangeEvent.Kind.PRODUCT) {
+            build.changed(event.getProduct().getProductId());
+        }
+        lock.writeLock().lock();
+        try {
+            switch (event.getKind()) {
+                case PRODUCT -> {
+                    Product product = event.getProduct();
+                    move(product.getProductId(),
+                            event.getType() == CatalogChangeEvent.Type.DELETED ? null : Membership.of(product));
+                }
+                case CATEGORY -> {
+                    Category category = event.getCategory();
+                    if (event.getType() == CatalogChangeEvent.Type.DELETED) {
+                        counts.categoryNames.remove(category.getId());
+                        counts.categories.remove(category.getId());
+                    } else {
+                        counts.nameCategory(category.getId(), category.getName());
+                    }
+                }
+                case BRAND -> {
+                    Brand brand = event.getBrand();
+                    if (event.getType() == CatalogChangeEvent.Type.DELETED) {
+                        counts.brandNames.remove(brand.getId());
+                        counts.brands.remove(brand.getId());
+                    } else {
+                        counts.nameBrand(brand.getId(), brand.getName());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the counters with grouped queries on the database and, if they drifted, rebuilds the counters
+     * and the remembered memberships from the products, so that later moves are taken off the right counts.
+     * The comparison is skipped when a catalog change is in flight before or while the queries run, since
+     * the query results may or may not include it; the next run will check again.
+     */
+    @Scheduled(fixedDelayString = "${tshirtshop.counters.reconcile-interval:PT5M}",
+            initialDelayString = "${tshirtshop.counters.reconcile-interval:PT5M}")
+    public void reconcile() {
+        if (!build.isReady()) {
+            return;
+        }
+        long seen = startedChanges.get();
+        if (completedChanges.get() != seen) {
+            logger.debug("Skipped the reconciliation of the catalog counters, a catalog change is in flight");
+            return;
+        }
+        Counts actual = query();
+        lock.readLock().lock();
+        try {
+            if (actual.equals(counts)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Integer, Membership> rebuilt = new HashMap<>();
+        catalogPageService.forEachProductBatch(IncrementalBuild.BATCH_SIZE, batch -> batch.forEach(
+                product -> rebuilt.put(product.getProductId(), Membership.of(product))));
+        Counts repaired = new Counts();
+        actual.categoryNames.forEach(repaired::nameCategory);
+        actual.brandNames.forEach(repaired::nameBrand);
+        rebuilt.values().forEach(membership -> repaired.add(membership, 1));
+        lock.writeLock().lock();
+        try {
+            if (startedChanges.get() != seen || completedChanges.get() != seen) {
+                logger.debug("Skipped the reconciliation of the catalog counters, the catalog changed meanwhile");
+                return;
+            }
+            logger.warn("Repaired drifted catalog counters: categories {} -> {}, brands {} -> {}, sizes {} -> {}",
+                    counts.categories, repaired.categories, counts.brands, repaired.brands, counts.sizes, repaired.sizes);
+            counts.replaceWith(repaired);
+            memberships.clear();
+            memberships.putAll(rebuilt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of products of every category.
+     *
+     * @return the product counts keyed by category name, sorted by name
+     */
+    public Map<String, Long> countByCategory() {
+        if (!build.isReady()) {
+            Counts actual = query();
+            return byName(actual.categories, actual.categoryNames);
+        }
+        lock.readLock().lock();
+        try {
+            return byName(counts.categories, counts.categoryNames);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of products of every brand.
+     *
+     * @return the product counts keyed by brand name, sorted by name
+     */
+    public Map<String, Long> countByBrand() {
+        if (!build.isReady()) {
+            Counts actual = query();
+            return byName(actual.brands, actual.brandNames);
+        }
+        lock.readLock().lock();
+        try {
+            return byName(counts.brands, counts.brandNames);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of products of every size, including the sizes without products.
+     *
+     * @return the product counts keyed by size, in size order
+     */
+    public Map<Size, Long> countBySize() {
+        if (!build.isReady()) {
+            return new EnumMap<>(query().sizes);
+        }
+        lock.readLock().lock();
+        try {
+            return new EnumMap<>(counts.sizes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves a product from its remembered category, brand and size to new ones, or removes it if the
+     * new membership is null. Must be called with the write lock held.
+     */
+    private void move(Integer productId, Membership membership) {
+        Membership previous = membership == null ? memberships.remove(productId) : memberships.put(productId, membership);
+        if (previous != null) {
+            counts.add(previous, -1);
+        }
+        if (membership != null) {
+            counts.add(membership, 1);
+        }
+    }
+
+    /**
+     * Reads the counts from the database with one grouped query per dimension.
+     */
+    private Counts query() {
+        Counts actual = new Counts();
+        for (Object[] row : categoryRepository.countProductsByCategory()) {
+            actual.categoryNames.put((String) row[0], (String) row[1]);
+            actual.categories.put((String) row[0], (Long) row[2]);
+        }
+        for (Object[] row : brandRepository.countProductsByBrand()) {
+            actual.brandNames.put((Integer) row[0], (String) row[1]);
+            actual.brands.put((Integer) row[0], (Long) row[2]);
+        }
+        for (Object[] row : productRepository.countProductsBySize()) {
+            actual.sizes.put((Size) row[0], (Long) row[1]);
+        }
+        return actual;
+    }
+
+    private static <K> Map<String, Long> byName(Map<K, Long> counts, Map<K, String> names) {
+        Map<String, Long> result = new TreeMap<>();
+        names.forEach((id, name) -> result.put(name, counts.getOrDefault(id, 0L)));
+        return result;
+    }
+
+    /**
+     * The category, brand and size a product is counted in.
+     */
+    private static final class Membership {
+        private final String categoryId;
+        private final Integer brandId;
+        private final Size size;
+
+        private Membership(String categoryId, Integer brandId, Size size) {
+            this.categoryId = categoryId;
+            this.brandId = brandId;
+            this.size = size;
+        }
+
+        private static Membership of(Product product) {
+            return new Membership(product.getCategory().getId(), product.getBrand().getId(), product.getSize());
+        }
+    }
+
+    /**
+     * The product counts of every category, brand and size, with the category and brand names.
+     */
+    private static final class Counts {
+        private final Map<String, String> categoryNames = new HashMap<>();
+        private final Map<String, Long> categories = new HashMap<>();
+        private final Map<Integer, String> brandNames = new HashMap<>();
+        private final Map<Integer, Long> brands = new HashMap<>();
+        private final Map<Size, Long> sizes = new EnumMap<>(Size.class);
+
+        private Counts() {
+            for (Size size : Size.values()) {
+                sizes.put(size, 0L);
+            }
+        }
+
+        private void nameCategory(String id, String name) {
+            categoryNames.put(id, name);
+            categories.putIfAbsent(id, 0L);
+        }
+
+        private void nameBrand(Integer id, String name) {
+            brandNames.put(id, name);
+            brands.putIfAbsent(id, 0L);
+        }
+
+        private void add(Membership membership, long delta) {
+            categories.merge(membership.categoryId, delta, Long::sum);
+            brands.merge(membership.brandId, delta, Long::sum);
+            sizes.merge(membership.size, delta, Long::sum);
+        }
+
+        private void replaceWith(Counts other) {
+            categoryNames.clear();
+            categoryNames.putAll(other.categoryNames);
+            categories.clear();
+            categories.putAll(other.categories);
+            brandNames.clear();
+            brandNames.putAll(other.brandNames);
+            brands.clear();
+            brands.putAll(other.brands);
+            sizes.clear();
+            sizes.putAll(other.sizes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Counts other)) return false;
+            return categoryNames.equals(other.categoryNames) && categories.equals(other.categories)
+                    && brandNames.equals(other.brandNames) && brands.equals(other.brands) && sizes.equals(other.sizes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryNames, categories, brandNames, brands, sizes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.repositories.BrandRepository;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of the {@link CategoryRepository} and the {@link BrandRepository}.
+ * Categories and brands are cached by ID and by name. Every write made through this service
+ * clears the caches of the written entity type, so a rename can never leave a stale name behind.
+ * The cached entities are detached: their lazy product collections must not be accessed.
+ */
+@Service
+public class CatalogLookupService {
+
+    public static final String CATEGORIES_BY_ID = "categoriesById";
+    public static final String CATEGORIES_BY_NAME = "categoriesByName";
+    public static final String BRANDS_BY_ID = "brandsById";
+    public static final String BRANDS_BY_NAME = "brandsByName";
+
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+
+    /**
+     * Constructs a CatalogLookupService with dependencies for the category and brand repositories.
+     *
+     * @param categoryRepository the repository for Category entities
+     * @param brandRepository    the repository for Brand entities
+     */
+    public CatalogLookupService(CategoryRepository categoryRepository, BrandRepository brandRepository) {
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+    }
+
+    /**
+     * Finds a category by its ID.
+     *
+     * @param id the ID of the category
+     * @return an {@link Optional} containing the category if found, or empty if not found
+     */
+    @Cacheable(cacheNames = CATEGORIES_BY_ID, unless = "#result == null")
+    public Optional<Category> findCategoryById(String id) {
+        return categoryRepository.findById(id);
+    }
+
+    /**
+     * Finds a category by its unique name.
+     *
+     * @param name the name of the category
+     * @return an {@link Optional} containing the category if found, or empty if not found
+     */
+    @Cacheable(cacheNames = CATEGORIES_BY_NAME, unless = "#result == null")
+    public Optional<Category> findCategoryByName(String name) {
+        return categoryRepository.findByName(name);
+    }
+
+    /**
+     * Finds a brand by its ID.
+     *
+     * @param id the ID of the brand
+     * @return an {@link Optional} containing the brand if found, or empty if not found
+     */
+    @Cacheable(cacheNames = BRANDS_BY_ID, unless = "#result == null")
+    public Optional<Brand> findBrandById(Integer id) {
+        return brandRepository.findById(id);
+    }
+
+    /**
+     * Finds a brand by its unique name.
+     *
+     * @param name the name of the brand
+     * @return an {@link Optional} containing the brand if found, or empty if not found
+     */
+    @Cacheable(cacheNames = BRANDS_BY_NAME, unless = "#result == null")
+    public Optional<Brand> findBrandByName(String name) {
+        return brandRepository.findByName(name);
+    }
+
+    /**
+     * Creates or updates a category and invalidates the category caches.
+     *
+     * @param category the category to save
+     * @return the saved category
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CATEGORIES_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = CATEGORIES_BY_NAME, allEntries = true)
+    })
+    public Category saveCategory(Category category) {
+        return categoryRepository.save(category);
+    }
+
+    /**
+     * Deletes a category and invalidates the category caches.
+     *
+     * @param id the ID of the category to delete
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CATEGORIES_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = CATEGORIES_BY_NAME, allEntries = true)
+    })
+    public void deleteCategory(String id) {
+        categoryRepository.deleteById(id);
+    }
+
+    /**
+     * Creates or updates a brand and invalidates the brand caches.
+     *
+     * @param brand the brand to save
+     * @return the saved brand
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BRANDS_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = BRANDS_BY_NAME, allEntries = true)
+    })
+    public Brand saveBrand(Brand brand) {
+        return brandRepository.save(brand);
+    }
+
+    /**
+     * Deletes a brand and invalidates the brand caches.
+     *
+     * @param id the ID of the brand to delete
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BRANDS_BY_ID, allEntries = true),
+            @CacheEvict(cacheNames = BRANDS_BY_NAME, allEntries = true)
+    })
+    public void deleteBrand(Integer id) {
+        brandRepository.deleteById(id);
+    }
+}
@@ -0,0 +1,293 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import be.eafcuccle.tshirtshop.dto.CatalogChange;
+import be.eafcuccle.tshirtshop.models.Prices;
+import be.eafcuccle.tshirtshop.models.Product;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Transactional outbox of the catalog changes, read by the {@link CatalogChangeFeed}.
+ * <p>
+ * Every {@link CatalogChangeEvent} adds a row in the transaction of the write, so a change is recorded if and
+ * only if it commits. The rows of a transaction are kept in memory while Hibernate flushes, then inserted in one
+ * JDBC batch just before the commit, once the last flush is done. Stock updates, which bypass JPA, only note
+ * the products they changed; their rows are inserted in the same step, with an {@code INSERT ... SELECT} of the
+ * final stock on the product rows the transaction still locks. The other product rows only carry the stock of a
+ * created product, since an updated entity may hold a stock older than the row's. The auto-increment ID of a row
+ * is its offset in the feed, allocated just before the commit, so an offset becomes visible shortly after it is
+ * allocated.
+ * Rows older than the retention are purged by a scheduled job.
+ */
+@Service
+public class CatalogOutbox {
+
+    private static final String STOCK = "STOCK";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO catalog_outbox (kind, type, entity_id, name, price_cents, quantity_in_stock, created_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_STOCK_SQL =
+            "INSERT INTO catalog_outbox (kind, type, entity_id, name, price_cents, quantity_in_stock, created_at)"
+                    + " SELECT 'PRODUCT', '" + STOCK + "', product_id, product_name, unit_price_cents, quantity_in_stock, ?"
+                    + " FROM product WHERE product_id = ?";
+    private static final String FIND_AFTER_SQL =
+            "SELECT id, kind, type, entity_id, name, price_cents, quantity_in_stock, created_at"
+                    + " FROM catalog_outbox WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+    private static final String OLDEST_SQL = "SELECT MIN(id) FROM catalog_outbox";
+    private static final String NEWEST_SQL = "SELECT MAX(id) FROM catalog_outbox";
+    private static final String PURGE_SQL = "DELETE FROM catalog_outbox WHERE created_at < ?";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogOutbox.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final Duration retention;
+
+    /**
+     * Constructs the CatalogOutbox.
+     *
+     * @param jdbcTemplate  the JDBC template writing and reading the outbox
+     * @param entityManager the entity manager of the transaction whose changes are recorded
+     * @param retention     how long the changes are kept for the clients resuming the feed
+     */
+    public CatalogOutbox(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                         @Value("${tshirtshop.outbox.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.retention = retention;
+    }
+
+    /**
+     * Records a change of a product, a category or a brand in the transaction that made it.
+     *
+     * @param event the change
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        Row row = Row.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(row));
+            return;
+        }
+        pending().rows.add(row);
+    }
+
+    /**
+     * Records the stock of products once the caller's transaction, which must hold the lock of their rows, is
+     * about to commit. A product changed several times by the transaction is recorded once, with its final stock.
+     *
+     * @param productIds the IDs of the products whose stock changed
+     */
+    public void recordStock(Collection<Integer> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insertStock(productIds);
+            return;
+        }
+        pending().stockIds.addAll(productIds);
+    }
+
+    /**
+     * Returns the changes of the current transaction, registering their insert before its completion on the
+     * first change.
+     */
+    private Pending pending() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(session);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(session, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(session);
+                }
+            });
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+                insert(created.rows);
+                insertStock(created.stockIds);
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void insertStock(Collection<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = List.copyOf(productIds);
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setTimestamp(1, now);
+                statement.setInt(2, ids.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+    }
+
+    /**
+     * Reads the changes following an offset, in offset order.
+     *
+     * @param after the offset of the last change already read
+     * @param upTo  the highest offset to read
+     * @param limit the maximum number of changes
+     * @return the changes
+     */
+    public List<CatalogChange> findAfter(long after, long upTo, int limit) {
+        return jdbcTemplate.query(FIND_AFTER_SQL, CatalogOutbox::toChange, after, upTo, limit);
+    }
+
+    /**
+     * Returns the offset of the oldest change still kept.
+     *
+     * @return the offset, or empty if the outbox is empty
+     */
+    public OptionalLong oldestOffset() {
+        Long oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Long.class);
+        return oldest == null ? OptionalLong.empty() : OptionalLong.of(oldest);
+    }
+
+    /**
+     * Returns the offset of the newest change.
+     *
+     * @return the offset, or 0 if the outbox is empty
+     */
+    public long newestOffset() {
+        Long newest = jdbcTemplate.queryForObject(NEWEST_SQL, Long.class);
+        return newest == null ? 0 : newest;
+    }
+
+    /**
+     * Deletes the changes older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${tshirtshop.outbox.purge-interval:PT1H}",
+            initialDelayString = "${tshirtshop.outbox.purge-interval:PT1H}")
+    public void purge() {
+        int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(retention)));
+        if (deleted > 0) {
+            logger.info("Purged {} catalog changes older than {}", deleted, retention);
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Row row = rows.get(i);
+                statement.setString(1, row.kind);
+                statement.setString(2, row.type);
+                statement.setString(3, row.entityId);
+                statement.setString(4, row.name);
+                setNullableInt(statement, 5, row.priceCents);
+                setNullableInt(statement, 6, row.quantityInStock);
+                statement.setTimestamp(7, row.createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private static void setNullableInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, value);
+        }
+    }
+
+    private static CatalogChange toChange(ResultSet resultSet, int rowNumber) throws SQLException {
+        int priceCents = resultSet.getInt("price_cents");
+        boolean hasPrice = !resultSet.wasNull();
+        int stock = resultSet.getInt("quantity_in_stock");
+        boolean hasStock = !resultSet.wasNull();
+        return new CatalogChange(resultSet.getLong("id"), resultSet.getString("kind"), resultSet.getString("type"),
+                resultSet.getString("entity_id"), resultSet.getString("name"),
+                hasPrice ? Prices.fromCents(priceCents) : null, hasStock ? stock : null,
+                resultSet.getTimestamp("created_at").toInstant());
+    }
+
+    /**
+     * The changes of a transaction waiting for its end.
+     */
+    private static final class Pending {
+        private final List<Row> rows = new ArrayList<>();
+        private final Set<Integer> stockIds = new LinkedHashSet<>();
+    }
+
+    /**
+     * A change waiting for the end of its transaction.
+     */
+    private static final class Row {
+        private final String kind;
+        private final String type;
+        private final String entityId;
+        private final String name;
+        private final Integer priceCents;
+        private final Integer quantityInStock;
+        private final Timestamp createdAt = Timestamp.from(Instant.now());
+
+        private Row(String kind, String type, String entityId, String name, Integer priceCents,
+                    Integer quantityInStock) {
+            this.kind = kind;
+            this.type = type;
+            this.entityId = entityId;
+            this.name = name;
+            this.priceCents = priceCents;
+            this.quantityInStock = quantityInStock;
+        }
+
+        private static Row of(CatalogChangeEvent event) {
+            String kind = event.getKind().name();
+            String type = event.getType().name();
+            boolean deleted = event.getType() == CatalogChangeEvent.Type.DELETED;
+            return switch (event.getKind()) {
+                case PRODUCT -> {
+                    Product product = event.getProduct();
+                    // The stock of an updated entity may predate a concurrent stock update, which bypasses JPA;
+                    // only the STOCK rows, read from the locked product row, carry it.
+                    boolean created = event.getType() == CatalogChangeEvent.Type.CREATED;
+                    yield deleted
+                            ? new Row(kind, type, String.valueOf(product.getProductId()), null, null, null)
+                            : new Row(kind, type, String.valueOf(product.getProductId()), product.getProductName(),
+                                    product.getUnitPriceCents(), created ? product.getQuantityInStock() : null);
+                }
+                case CATEGORY -> new Row(kind, type, event.getCategory().getId(),
+                        deleted ? null : event.getCategory().getName(), null, null);
+                case BRAND -> new Row(kind, type, String.valueOf(event.getBrand().getId()),
+                        deleted ? null : event.getBrand().getName(), null, null);
+            };
+        }
+    }
+}
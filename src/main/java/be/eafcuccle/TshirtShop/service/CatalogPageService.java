@@ -0,0 +1,221 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.repositories.BrandRepository;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service building keyset-paginated listings of the catalog entities.
+ * Each page is fetched with a {@code WHERE key > :last ORDER BY key LIMIT n} query, so the cost of a page
+ * only depends on its size and never on its position in the table.
+ * The listings run in read-only transactions so that they may be served by an up-to-date replica.
+ */
+@Service
+public class CatalogPageService {
+
+    /**
+     * The sort keys supported by the product listing. Each one is paired with the product ID
+     * so that the keyset stays unique when several products share the same price or name.
+     */
+    public enum ProductSort {
+        ID, PRICE, NAME
+    }
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ProductRepository productRepository;
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    /**
+     * Constructs a CatalogPageService with the catalog repositories and the page size bounds.
+     *
+     * @param productRepository  the repository for Product entities
+     * @param brandRepository    the repository for Brand entities
+     * @param categoryRepository the repository for Category entities
+     * @param defaultLimit       the page size used when the client does not provide one
+     * @param maxLimit           the largest page size a client may request
+     */
+    public CatalogPageService(ProductRepository productRepository, BrandRepository brandRepository,
+                              CategoryRepository categoryRepository,
+                              @Value("${tshirtshop.pagination.default-limit:50}") int defaultLimit,
+                              @Value("${tshirtshop.pagination.max-limit:500}") int maxLimit) {
+        this.productRepository = productRepository;
+        this.brandRepository = brandRepository;
+        this.categoryRepository = categoryRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Returns a page of products sorted by the given key.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the requested page size, or null for the default size
+     * @param sort   the sort key, one of {@code id}, {@code price} or {@code name}
+     * @return the requested page of products
+     * @throws IllegalArgumentException if the sort key, the limit or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Product> products(String cursor, Integer limit, String sort) {
+        ProductSort productSort = ProductSort.valueOf(sort.toUpperCase(Locale.ROOT));
+        String[] key = decode(cursor, productSort.name());
+        Pageable page = pageable(limit);
+        // The first page starts below the smallest possible key: IDs and prices are positive, names are not blank.
+        Integer afterId = key == null ? 0 : Integer.parseInt(key[1]);
+        List<Product> products = switch (productSort) {
+            case ID -> productRepository.findByProductIdGreaterThanOrderByProductIdAsc(afterId, page);
+            case PRICE -> productRepository.findPageOrderedByUnitPrice(
+                    key == null ? -1 : Integer.parseInt(key[0]), afterId, page);
+            case NAME -> productRepository.findPageOrderedByProductName(key == null ? "" : key[0], afterId, page);
+        };
+        Function<Product, String> sortValue = switch (productSort) {
+            case ID -> product -> "";
+            case PRICE -> product -> Integer.toString(product.getUnitPriceCents());
+            case NAME -> Product::getProductName;
+        };
+        return toPage(products, page, product -> encode(productSort.name(),
+                sortValue.apply(product), String.valueOf(product.getProductId())));
+    }
+
+    /**
+     * Returns a page of the products of a category sorted by ID, as DTOs.
+     *
+     * @param categoryId the ID of the category
+     * @param cursor     the cursor returned with the previous page, or null for the first page
+     * @param limit      the requested page size, or null for the default size
+     * @return the requested page of products
+     * @throws IllegalArgumentException if the limit or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> productsByCategory(String categoryId, String cursor, Integer limit) {
+        String[] key = decode(cursor, "CATEGORY_PRODUCT");
+        Pageable page = pageable(limit);
+        List<ProductDTO> products = productRepository.findDTOPageByCategoryId(categoryId,
+                key == null ? 0 : Integer.parseInt(key[1]), page);
+        return toPage(products, page, product -> encode("CATEGORY_PRODUCT", "", String.valueOf(product.getId())));
+    }
+
+    /**
+     * Returns a page of brands sorted by ID.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the requested page size, or null for the default size
+     * @return the requested page of brands
+     * @throws IllegalArgumentException if the limit or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Brand> brands(String cursor, Integer limit) {
+        String[] key = decode(cursor, "BRAND");
+        Pageable page = pageable(limit);
+        List<Brand> brands = brandRepository.findByIdGreaterThanOrderByIdAsc(key == null ? 0 : Integer.parseInt(key[1]), page);
+        return toPage(brands, page, brand -> encode("BRAND", "", String.valueOf(brand.getId())));
+    }
+
+    /**
+     * Returns a page of categories sorted by ID.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the requested page size, or null for the default size
+     * @return the requested page of categories
+     * @throws IllegalArgumentException if the limit or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Category> categories(String cursor, Integer limit) {
+        String[] key = decode(cursor, "CATEGORY");
+        Pageable page = pageable(limit);
+        List<Category> categories = categoryRepository.findByIdGreaterThanOrderByIdAsc(key == null ? "" : key[1], page);
+        return toPage(categories, page, category -> encode("CATEGORY", "", category.getId()));
+    }
+
+    /**
+     * Reads every product in ID order, one batch at a time, so that the whole table is never held in memory.
+     *
+     * @param batchSize the number of products per batch
+     * @param action    the action applied to each batch
+     */
+    public void forEachProductBatch(int batchSize, Consumer<List<Product>> action) {
+        List<Product> batch;
+        int afterId = 0;
+        do {
+            batch = productRepository.findByProductIdGreaterThanOrderByProductIdAsc(afterId, PageRequest.ofSize(batchSize));
+            if (!batch.isEmpty()) {
+                action.accept(batch);
+                afterId = batch.get(batch.size() - 1).getProductId();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Resolves the page size requested by a client.
+     *
+     * @param limit the requested page size, or null for the default size
+     * @return the page size to use
+     * @throws IllegalArgumentException if the limit is out of bounds
+     */
+    public int resolveLimit(Integer limit) {
+        int size = limit == null ? defaultLimit : limit;
+        if (size < 1 || size > maxLimit) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + maxLimit);
+        }
+        return size;
+    }
+
+    /**
+     * Builds a pageable fetching one extra row, which tells whether a next page exists
+     * without running a count query.
+     */
+    private Pageable pageable(Integer limit) {
+        return PageRequest.ofSize(resolveLimit(limit) + 1);
+    }
+
+    private <T> CursorPage<T> toPage(List<T> rows, Pageable page, Function<T, String> cursorOf) {
+        int size = page.getPageSize() - 1;
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)));
+    }
+
+    private static String encode(String kind, String value, String id) {
+        return ENCODER.encodeToString((kind + "|" + value + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into its sort value and ID, checking that it was issued for the same listing.
+     *
+     * @return an array holding the sort value and the ID, or null if no cursor was given
+     */
+    private static String[] decode(String cursor, String kind) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        int first = raw.indexOf('|');
+        int last = raw.lastIndexOf('|');
+        if (first < 0 || first == last || !kind.equals(raw.substring(0, first))) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new String[]{raw.substring(first + 1, last), raw.substring(last + 1)};
+    }
+}
@@ -0,0 +1,147 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import be.eafcuccle.tshirtshop.dto.ImportReport;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.repositories.BrandRepository;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds the demonstration catalog into an empty database, once per dataset version.
+ * <p>
+ * The seeding runs when the application is ready, before the in-memory indexes are built from the database,
+ * so it adds nothing to the initialization of the beans. A row of the {@code seed_dataset} table records each
+ * loaded version: a restart finds it with a single query and skips the seeding. The row is inserted first, in
+ * the same transaction as the fixtures, so the seeding is all or nothing, and an instance starting at the same
+ * time waits on the row and then gives up. The products are read from an NDJSON resource and inserted by the
+ * {@link ProductImportService}, in JDBC batches; the categories and brands missing by name are saved with them.
+ * Bumping {@link #VERSION} with a new resource seeds the new fixtures on the next start.
+ */
+@Service
+public class CatalogSeeder {
+
+    static final String DATASET = "catalog";
+    static final int VERSION = 1;
+
+    private static final String PRODUCTS = "seed/catalog-" + VERSION + ".ndjson";
+    private static final List<String> CATEGORIES = List.of("Hommes", "Femmes", "Enfants");
+    private static final List<String> BRANDS = List.of("Nike", "Adidas", "Jack & Jones");
+
+    private static final String FIND_SQL = "SELECT COUNT(*) FROM seed_dataset WHERE name = ? AND version = ?";
+    private static final String CLAIM_SQL = "INSERT INTO seed_dataset (name, version, applied_at) VALUES (?, ?, ?)";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSeeder.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogLookupService catalogLookupService;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final ProductImportService productImportService;
+    private final boolean enabled;
+
+    /**
+     * Constructs the CatalogSeeder.
+     *
+     * @param jdbcTemplate         the JDBC template reading and recording the seeded versions
+     * @param transactionManager   the transaction manager of the seeding transaction
+     * @param catalogLookupService the cached lookups of categories and brands, evicted by the saves
+     * @param categoryRepository   the repository for Category entities
+     * @param brandRepository      the repository for Brand entities
+     * @param productImportService the service inserting the products in batches
+     * @param enabled              whether the catalog is seeded at all
+     */
+    public CatalogSeeder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         CatalogLookupService catalogLookupService, CategoryRepository categoryRepository,
+                         BrandRepository brandRepository, ProductImportService productImportService,
+                         @Value("${tshirtshop.seed.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogLookupService = catalogLookupService;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+        this.productImportService = productImportService;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Seeds the catalog, unless it is disabled or its version was already loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void seed() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Integer found = jdbcTemplate.queryForObject(FIND_SQL, Integer.class, DATASET, VERSION);
+        if (found != null && found > 0) {
+            logger.info("The {} dataset version {} is already seeded, checked in {} ms", DATASET, VERSION,
+                    (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        try {
+            ImportReport report = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(CLAIM_SQL, DATASET, VERSION, Timestamp.from(Instant.now()));
+                saveMissingCategoriesAndBrands();
+                return importProducts();
+            });
+            logger.info("Seeded the {} dataset version {} with {} products in {} ms", DATASET, VERSION,
+                    report.getImported(), (System.nanoTime() - start) / 1_000_000);
+        } catch (DuplicateKeyException e) {
+            logger.info("The {} dataset version {} was seeded by another instance", DATASET, VERSION);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to seed the {} dataset version {}; it will be tried again on the next start",
+                    DATASET, VERSION, e);
+        }
+    }
+
+    private void saveMissingCategoriesAndBrands() {
+        Set<String> categories = categoryRepository.findAll().stream().map(Category::getName).collect(Collectors.toSet());
+        CATEGORIES.stream()
+                .filter(name -> !categories.contains(name))
+                .forEach(name -> catalogLookupService.saveCategory(new Category(name)));
+        Set<String> brands = brandRepository.findAll().stream().map(Brand::getName).collect(Collectors.toSet());
+        BRANDS.stream()
+                .filter(name -> !brands.contains(name))
+                .forEach(name -> catalogLookupService.saveBrand(new Brand(name)));
+    }
+
+    /**
+     * Imports the products of the dataset. The import chunks join the seeding transaction, so a rejected row
+     * rolls the whole dataset back.
+     */
+    private ImportReport importProducts() {
+        try (InputStream input = new ClassPathResource(PRODUCTS).getInputStream()) {
+            ImportReport report = productImportService.importProducts(input, ProductImportService.Format.NDJSON);
+            if (report.getRejected() > 0) {
+                throw new IllegalStateException("Rejected " + report.getRejected() + " rows of " + PRODUCTS
+                        + ", first: " + report.getErrors().get(0).getMessage());
+            }
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + PRODUCTS, e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package be.eafcuccle.tshirtshop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import be.eafcuccle.tshirtshop.dto.CategoryDTO;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of the catalog endpoints that are the same for every visitor, serialized once and kept as
+ * immutable byte arrays, uncompressed and compressed with gzip and deflate at the highest level.
+ * <p>
+ * Each snapshot remembers the {@link CatalogVersion} it was built from, and is only served while that version
+ * is current; otherwise the request falls through to its controller. A new catalog version schedules a
+ * rebuild of every snapshot on a single background thread. Versions published while a rebuild is pending
+ * are coalesced into it, so a burst of writes costs one rebuild. Brotli is not offered: the JDK has no
+ * Brotli encoder, and deflate and gzip already cover every client.
+ */
+@Service
+public class CatalogSnapshots {
+
+    /**
+     * The endpoints served from a snapshot.
+     */
+    public enum Endpoint {
+        CATEGORY_DTOS("/api/categories/dtos"),
+        CATEGORY_COUNTS("/api/categories/names-with-counts"),
+        PRODUCT_NAMES("/api/products/names"),
+        FIRST_PRODUCT_PAGE("/api/products");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Endpoint, Supplier<Object>> bodies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs the CatalogSnapshots with the sources of the snapshot bodies.
+     *
+     * @param catalogVersion     the catalog version the snapshots are built from
+     * @param catalogPageService the service building the first page of products
+     * @param catalogCounters    the in-memory product counts
+     * @param productRepository  the repository for Product entities
+     * @param categoryRepository the repository for Category entities
+     * @param objectMapper       the mapper serializing the controller responses
+     * @param transactionManager the transaction manager of the read-only rebuild transactions
+     */
+    public CatalogSnapshots(CatalogVersion catalogVersion, CatalogPageService catalogPageService,
+                            CatalogCounters catalogCounters, ProductRepository productRepository,
+                            CategoryRepository categoryRepository, ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        bodies.put(Endpoint.CATEGORY_DTOS, () -> categoryRepository.findAll().stream().map(CategoryDTO::new).toList());
+        bodies.put(Endpoint.CATEGORY_COUNTS, () -> {
+            List<Map<String, Object>> response = new ArrayList<>();
+            catalogCounters.countByCategory().forEach((name, count) -> {
+                Map<String, Object> categoryInfo = new HashMap<>();
+                categoryInfo.put("name", name);
+                categoryInfo.put("productCount", count);
+                response.add(categoryInfo);
+            });
+            return response;
+        });
+        bodies.put(Endpoint.PRODUCT_NAMES, () -> productRepository.findAll().stream().map(Product::getProductName).toList());
+        bodies.put(Endpoint.FIRST_PRODUCT_PAGE, () -> catalogPageService.products(null, null, "id"));
+    }
+
+    /**
+     * Builds the snapshots once the in-memory counters are available.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        scheduleRebuild();
+    }
+
+    /**
+     * Schedules a rebuild of the snapshots for a new catalog version.
+     *
+     * @param stamp the new version
+     */
+    @EventListener
+    public void onVersionChange(CatalogVersion.Stamp stamp) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Returns the snapshot of an endpoint, if it was built from the current catalog version.
+     *
+     * @param endpoint the endpoint
+     * @return an {@link Optional} containing the snapshot, or empty if it is missing or outdated
+     */
+    public Optional<Snapshot> find(Endpoint endpoint) {
+        Snapshot snapshot = snapshots.get(endpoint);
+        if (snapshot == null || snapshot.version != catalogVersion.current().getVersion()) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Stops the rebuild thread when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            try {
+                rebuildExecutor.execute(this::rebuild);
+            } catch (RejectedExecutionException e) {
+                rebuildPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds every snapshot, tagged with the version current when the rebuild starts. A write committed
+     * meanwhile changes the version, which schedules another rebuild and keeps these snapshots unused.
+     */
+    private void rebuild() {
+        rebuildPending.set(false);
+        long start = System.nanoTime();
+        long version = catalogVersion.current().getVersion();
+        try {
+            transactionTemplate.executeWithoutResult(status -> bodies.forEach((endpoint, body) -> {
+                try {
+                    snapshots.put(endpoint, new Snapshot(version, objectMapper.writeValueAsBytes(body.get())));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot serialize the snapshot of " + endpoint.getPath(), e);
+                }
+            }));
+            logger.debug("Built the catalog snapshots of version {} in {} ms", version,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to build the catalog snapshots of version {}", version, e);
+        }
+    }
+
+    /**
+     * The serialized body of an endpoint, in its uncompressed and compressed forms.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final byte[] deflate;
+
+        private Snapshot(long version, byte[] identity) throws IOException {
+            this.version = version;
+            this.identity = identity;
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(identity.length / 4 + 64);
+            try (OutputStream out = new GZIPOutputStream(gzipped) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                out.write(identity);
+            }
+            this.gzip = gzipped.toByteArray();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(identity.length / 4 + 64);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (OutputStream out = new DeflaterOutputStream(deflated, deflater)) {
+                out.write(identity);
+            } finally {
+                deflater.end();
+            }
+            this.deflate = deflated.toByteArray();
+        }
+
+        /**
+         * Returns the body for a content coding. The returned array is shared and must not be modified.
+         *
+         * @param coding {@code gzip}, {@code deflate}, or null for the uncompressed body
+         * @return the body
+         */
+        public byte[] body(String coding) {
+            if ("gzip".equals(coding)) {
+                return gzip;
+            }
+            if ("deflate".equals(coding)) {
+                return deflate;
+            }
+            return identity;
+        }
+    }
+}
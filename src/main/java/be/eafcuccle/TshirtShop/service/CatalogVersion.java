@@ -0,0 +1,185 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version of the whole catalog, changed by every write to a product, a category or a brand.
+ * <p>
+ * The catalog read endpoints are tagged with this version, so that a client holding a response of the
+ * current version is answered with HTTP status 304 Not Modified. The version is changed once per transaction
+ * writing to the catalog, when it commits: its synchronization has the lowest precedence, so it runs after
+ * the transactional listeners applying the changes to the in-memory indexes and counters, which all have a
+ * higher one, and a new version never labels a response computed from the previous state. Outside of a
+ * transaction, the version is changed by each change. A random epoch chosen at startup is part of the entity
+ * tag, since the counter itself restarts with the application.
+ * <p>
+ * The last-modified time is the second the version was created in, never later, since HTTP dates have a
+ * one-second resolution and must not lie in the future. A version created in the same second as the previous
+ * one has no usable last-modified time: {@code If-Modified-Since} could not tell the two apart.
+ * Every new version is published as an application event carrying its {@link Stamp}. The last
+ * {@value #HISTORY} versions are remembered, to tag the responses read from a replica with the version it has applied.
+ */
+@Service
+public class CatalogVersion {
+
+    private static final int HISTORY = 1024;
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 16);
+    private final ApplicationEventPublisher eventPublisher;
+    private final Deque<Stamp> history = new ArrayDeque<>();
+    private volatile Stamp current = new Stamp(epoch, 0, System.currentTimeMillis(), false);
+
+    /**
+     * Constructs a CatalogVersion publishing its new versions through the given publisher.
+     *
+     * @param eventPublisher the application event publisher
+     */
+    public CatalogVersion(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        this.history.add(current);
+    }
+
+    /**
+     * Changes the version once the transaction of a catalog change commits; a rolled-back change keeps it.
+     * Runs after the other listeners when there is no transaction.
+     *
+     * @param event the change
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        incrementAfterCompletion();
+    }
+
+    /**
+     * Changes the version when the current transaction commits, or right away without a transaction.
+     * A transaction changes the version once, however many times this is called during it. Used directly by
+     * the catalog writes that bypass JPA and publish no {@link CatalogChangeEvent}.
+     */
+    public void incrementAfterCompletion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+        } else if (!TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE;
+                }
+
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(CatalogVersion.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(CatalogVersion.this, Boolean.TRUE);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+                    if (status == STATUS_COMMITTED) {
+                        increment();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the current version.
+     *
+     * @return the entity tag and last-modified time of the current version
+     */
+    public Stamp current() {
+        return current;
+    }
+
+    /**
+     * Returns the newest version created at or before a given time. A read replica that applied the commits of
+     * the primary up to that time holds at least this version, since a version is created after its commit.
+     *
+     * @param time the time in milliseconds since the epoch
+     * @return the entity tag and last-modified time of the version, or null if every remembered version is newer
+     */
+    public synchronized Stamp at(long time) {
+        Iterator<Stamp> stamps = history.descendingIterator();
+        while (stamps.hasNext()) {
+            Stamp stamp = stamps.next();
+            if (stamp.createdAt <= time) {
+                return stamp;
+            }
+        }
+        return null;
+    }
+
+    private void increment() {
+        Stamp next;
+        synchronized (this) {
+            Stamp previous = current;
+            long now = Math.max(System.currentTimeMillis(), previous.createdAt);
+            next = new Stamp(epoch, previous.version + 1, now, now / 1000 == previous.createdAt / 1000);
+            current = next;
+            history.addLast(next);
+            if (history.size() > HISTORY) {
+                history.removeFirst();
+            }
+        }
+        eventPublisher.publishEvent(next);
+    }
+
+    /**
+     * The entity tag and last-modified time of one version of the catalog.
+     */
+    public static final class Stamp {
+        private final long version;
+        private final String eTag;
+        private final long createdAt;
+        private final boolean sharedSecond;
+
+        private Stamp(String epoch, long version, long createdAt, boolean sharedSecond) {
+            this.version = version;
+            this.eTag = "\"" + epoch + "-" + Long.toHexString(version) + "\"";
+            this.createdAt = createdAt;
+            this.sharedSecond = sharedSecond;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the strong entity tag, quoted
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return the time in milliseconds since the epoch, truncated to the second, or -1 if the previous
+         * version was created in the same second
+         */
+        public long getLastModified() {
+            return sharedSecond ? -1 : createdAt / 1000 * 1000;
+        }
+
+        /**
+         * @return when the version was created, in milliseconds since the epoch
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
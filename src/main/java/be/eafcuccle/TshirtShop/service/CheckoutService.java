@@ -0,0 +1,262 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import be.eafcuccle.tshirtshop.dto.CheckoutRequest;
+import be.eafcuccle.tshirtshop.dto.CommandDTO;
+import be.eafcuccle.tshirtshop.models.*;
+import be.eafcuccle.tshirtshop.repositories.CommandRepository;
+import be.eafcuccle.tshirtshop.repositories.DeliveryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service turning shopping carts into orders.
+ * <p>
+ * The checkout itself is one short transaction: the cart lines are priced from the database, the total is
+ * compared with the one the client accepted, the stock of every line is reserved with a single JDBC batch,
+ * and the order is saved PENDING. Its ID is returned at once. The payment and the delivery are then processed
+ * on a bounded worker pool, so that request threads never wait for them. A worker claims the order as PAYING
+ * in a short transaction, calls the payment provider without holding any lock, then confirms the order or
+ * releases its stock in a second transaction. Orders the pool could not take, or that were interrupted by a
+ * restart, are picked up again by a periodic sweep.
+ */
+@Service
+public class CheckoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutService.class);
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final CartService cartService;
+    private final StockService stockService;
+    private final PaymentService paymentService;
+    private final ProductRepository productRepository;
+    private final CommandRepository commandRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor processingExecutor;
+    private final Duration sweepAge;
+    private final Set<String> cartsCheckingOut = ConcurrentHashMap.newKeySet();
+    private final Set<Long> queuedCommands = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a CheckoutService.
+     *
+     * @param cartService        the service holding the carts
+     * @param stockService       the service reserving the stock
+     * @param paymentService     the service charging the orders
+     * @param productRepository  the repository for Product entities
+     * @param commandRepository  the repository for Command entities
+     * @param deliveryRepository the repository for Delivery entities
+     * @param transactionManager the transaction manager of the checkout and processing transactions
+     * @param threads            the number of threads processing the orders
+     * @param queue              the number of orders that may wait for a thread
+     * @param sweepAge           how long an order may stay pending before the sweep processes it again
+     */
+    public CheckoutService(CartService cartService, StockService stockService, PaymentService paymentService,
+                           ProductRepository productRepository, CommandRepository commandRepository,
+                           DeliveryRepository deliveryRepository, PlatformTransactionManager transactionManager,
+                           @Value("${tshirtshop.checkout.threads:4}") int threads,
+                           @Value("${tshirtshop.checkout.queue:1000}") int queue,
+                           @Value("${tshirtshop.checkout.sweep-interval:PT1M}") Duration sweepAge) {
+        this.cartService = cartService;
+        this.stockService = stockService;
+        this.paymentService = paymentService;
+        this.productRepository = productRepository;
+        this.commandRepository = commandRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sweepAge = sweepAge;
+        this.processingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), runnable -> {
+                    Thread thread = new Thread(runnable, "checkout");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Places an order from a cart and schedules its payment.
+     *
+     * @param request the cart, the payment method and the total the client accepted
+     * @return an {@link Optional} containing the ID of the pending order, or empty if the cart does not exist
+     * @throws IllegalArgumentException   if the request is incomplete, the expected total is not a valid amount,
+     *                                    the cart is empty or a product no longer exists
+     * @throws IllegalStateException      if the same cart is already being checked out
+     * @throws PriceChangedException      if the total at the current prices is not the accepted one
+     * @throws InsufficientStockException if a product has not enough stock, in which case nothing is reserved
+     */
+    public Optional<Long> checkout(CheckoutRequest request) {
+        if (request.getCartId() == null || request.getPayementType() == null || request.getExpectedTotal() == null) {
+            throw new IllegalArgumentException("The cart, the payment type and the expected total are required");
+        }
+        long expectedTotalCents = toExpectedCents(request.getExpectedTotal());
+        String cartId = request.getCartId();
+        if (!cartsCheckingOut.add(cartId)) {
+            throw new IllegalStateException("The cart " + cartId + " is already being checked out");
+        }
+        try {
+            Optional<Cart> cart = cartService.snapshot(cartId);
+            if (cart.isEmpty()) {
+                return Optional.empty();
+            }
+            if (cart.get().isEmpty()) {
+                throw new IllegalArgumentException("The cart " + cartId + " is empty");
+            }
+            Long commandId = transactionTemplate.execute(status -> placeOrder(cart.get(), request, expectedTotalCents));
+            cartService.forget(cartId);
+            submit(commandId);
+            return Optional.of(commandId);
+        } finally {
+            cartsCheckingOut.remove(cartId);
+        }
+    }
+
+    /**
+     * Finds an order with its lines and the status of its delivery.
+     *
+     * @param commandId the ID of the order
+     * @return an {@link Optional} containing the order if found, or empty if not found
+     */
+    public Optional<CommandDTO> find(long commandId) {
+        return transactionTemplate.execute(status -> commandRepository.findWithLinesById(commandId)
+                .map(command -> new CommandDTO(command, deliveryRepository.findByCommandId(commandId)
+                        .map(Delivery::getStatus).orElse(null))));
+    }
+
+    /**
+     * Resubmits the orders that stayed pending or paying for too long, because the worker pool was full when
+     * they were placed or the application stopped while processing them.
+     */
+    @Scheduled(fixedDelayString = "${tshirtshop.checkout.sweep-interval:PT1M}",
+            initialDelayString = "${tshirtshop.checkout.sweep-interval:PT1M}")
+    public void sweepPendingOrders() {
+        List<Long> pending = commandRepository.findIdsByStatusInCreatedBefore(
+                EnumSet.of(CommandStatus.PENDING, CommandStatus.PAYING),
+                Instant.now().minus(sweepAge), PageRequest.ofSize(SWEEP_BATCH_SIZE));
+        if (!pending.isEmpty()) {
+            logger.info("Resubmitting {} pending orders", pending.size());
+            pending.forEach(this::submit);
+        }
+    }
+
+    /**
+     * Stops the processing workers when the application shuts down. Orders still queued stay pending or paying
+     * and are processed by the sweep after the restart.
+     */
+    @PreDestroy
+    public void shutdown() {
+        processingExecutor.shutdownNow();
+    }
+
+    /**
+     * Prices the cart, reserves the stock and saves the pending order. Must be called in a transaction.
+     */
+    private Long placeOrder(Cart cart, CheckoutRequest request, long expectedTotalCents) {
+        Map<Integer, Integer> quantities = cart.getQuantities();
+        Map<Integer, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        Instant now = Instant.now();
+        Command command = new Command(cart.getId(), request.getPayementType(), now);
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("The product " + productId + " no longer exists");
+            }
+            command.addLine(new CommandLines(productId, product.getProductName(), quantity, product.getUnitPriceCents()));
+        });
+        if (command.getTotalCents() != expectedTotalCents) {
+            throw new PriceChangedException(request.getExpectedTotal(), Prices.fromCents(command.getTotalCents()));
+        }
+        stockService.reserveBatch(quantities);
+        commandRepository.save(command);
+        cartService.saveCheckedOut(cart, now);
+        return command.getId();
+    }
+
+    /**
+     * Queues an order for processing, unless it is already queued. If the pool is full,
+     * the order stays pending until the next sweep.
+     */
+    private void submit(Long commandId) {
+        if (!queuedCommands.add(commandId)) {
+            return;
+        }
+        try {
+            processingExecutor.execute(() -> {
+                try {
+                    process(commandId);
+                } catch (RuntimeException e) {
+                    logger.error("Could not process order {}, it stays pending", commandId, e);
+                } finally {
+                    queuedCommands.remove(commandId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedCommands.remove(commandId);
+            logger.warn("The checkout workers are busy, order {} will be processed by the next sweep", commandId);
+        }
+    }
+
+    /**
+     * Converts the total accepted by the client to cents.
+     *
+     * @throws IllegalArgumentException if the total is negative or does not fit in cents
+     */
+    private static long toExpectedCents(BigDecimal expectedTotal) {
+        if (expectedTotal.signum() < 0) {
+            throw new IllegalArgumentException("The expected total cannot be negative");
+        }
+        try {
+            return Prices.toCents(expectedTotal);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The expected total is out of range: " + expectedTotal);
+        }
+    }
+
+    /**
+     * Claims a pending order as paying, charges it without holding any lock, then creates its delivery, or
+     * releases its stock if the payment is refused. The claim and the outcome each lock the order row for a
+     * short transaction only; an order found paying was interrupted and is charged again under its ID.
+     */
+    private void process(Long commandId) {
+        Command command = transactionTemplate.execute(status -> commandRepository.findForUpdateById(commandId)
+                .filter(claimed -> claimed.getStatus() == CommandStatus.PENDING
+                        || claimed.getStatus() == CommandStatus.PAYING)
+                .map(claimed -> {
+                    claimed.setStatus(CommandStatus.PAYING);
+                    return claimed;
+                })
+                .orElse(null));
+        if (command == null) {
+            return;
+        }
+        boolean paid = paymentService.charge(command);
+        transactionTemplate.executeWithoutResult(status -> {
+            Command paying = commandRepository.findForUpdateById(commandId).orElse(null);
+            if (paying == null || paying.getStatus() != CommandStatus.PAYING) {
+                return;
+            }
+            if (paid) {
+                paying.setStatus(CommandStatus.PAID);
+                deliveryRepository.save(new Delivery(paying, Instant.now()));
+            } else {
+                paying.setStatus(CommandStatus.PAYMENT_FAILED);
+                paying.getLines().forEach(line -> stockService.release(line.getProductId(), line.getQuantity()));
+            }
+        });
+    }
+}
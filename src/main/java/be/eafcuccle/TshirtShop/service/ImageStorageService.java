@@ -0,0 +1,193 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Service locating the product images in the configured storage directory.
+ * Images are named after the product ID, so finding one never requires a database query.
+ * <p>
+ * Resized variants are generated on first request and stored next to the originals as
+ * {@code <id>-<variant>.jpg}. Resizing runs on a bounded worker pool, and concurrent requests
+ * for the same missing variant wait for a single resize instead of starting their own.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    private final Path directory;
+    private final Duration resizeTimeout;
+    private final ThreadPoolExecutor resizeExecutor;
+    private final Map<Path, CompletableFuture<Path>> pendingResizes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an ImageStorageService reading images from the given directory.
+     *
+     * @param directory     the directory holding the product images
+     * @param resizeThreads the number of threads resizing images
+     * @param resizeQueue   the number of resizes that may wait for a thread
+     * @param resizeTimeout how long a request waits for a resize before falling back to the original image
+     */
+    public ImageStorageService(@Value("${tshirtshop.images.directory}") String directory,
+                               @Value("${tshirtshop.images.resize-threads:2}") int resizeThreads,
+                               @Value("${tshirtshop.images.resize-queue:100}") int resizeQueue,
+                               @Value("${tshirtshop.images.resize-timeout:5s}") Duration resizeTimeout) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.resizeTimeout = resizeTimeout;
+        this.resizeExecutor = new ThreadPoolExecutor(resizeThreads, resizeThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(resizeQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "image-resize");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Finds the original image of a product.
+     *
+     * @param productId the ID of the product
+     * @return an {@link Optional} containing the path of the image if it exists, or empty if not found
+     */
+    public Optional<Path> findProductImage(int productId) {
+        Path image = directory.resolve(productId + ".jpg");
+        return Files.isRegularFile(image) ? Optional.of(image) : Optional.empty();
+    }
+
+    /**
+     * Finds a variant of the image of a product, resizing the original if the variant
+     * does not exist yet or is older than the original. If the resize cannot be done in time,
+     * the original image is returned instead, which {@link #isOriginal(int, Path)} tells apart.
+     *
+     * @param productId the ID of the product
+     * @param variant   the requested variant
+     * @return an {@link Optional} containing the path of the image if it exists, or empty if not found
+     */
+    public Optional<Path> findProductImage(int productId, ImageVariant variant) {
+        Optional<Path> original = findProductImage(productId);
+        if (original.isEmpty() || variant == ImageVariant.FULL) {
+            return original;
+        }
+        Path target = directory.resolve(productId + "-" + variant.getName() + ".jpg");
+        if (isUpToDate(target, original.get())) {
+            return Optional.of(target);
+        }
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> resize = pendingResizes.putIfAbsent(target, created);
+        if (resize == null) {
+            resize = created;
+            submitResize(original.get(), target, variant.getMaxDimension(), created);
+        }
+        try {
+            return Optional.of(resize.get(resizeTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Serving the original image of product {} instead of the {} variant", productId,
+                    variant.getName(), e);
+        }
+        return original;
+    }
+
+    /**
+     * Tells whether an image found for a product is its original, for instance because a variant could not
+     * be resized in time.
+     *
+     * @param productId the ID of the product
+     * @param image     the path returned by {@link #findProductImage(int, ImageVariant)}
+     * @return true if the image is the original
+     */
+    public boolean isOriginal(int productId, Path image) {
+        return image.equals(directory.resolve(productId + ".jpg"));
+    }
+
+    /**
+     * Schedules a resize on the worker pool. The pending entry is removed once the variant file
+     * is written, so later requests find the file instead of resizing again.
+     */
+    private void submitResize(Path original, Path target, int maxDimension, CompletableFuture<Path> resize) {
+        try {
+            resizeExecutor.execute(() -> {
+                try {
+                    if (!isUpToDate(target, original)) {
+                        resize(original, target, maxDimension);
+                    }
+                    resize.complete(target);
+                } catch (IOException | RuntimeException e) {
+                    resize.completeExceptionally(e);
+                } finally {
+                    pendingResizes.remove(target, resize);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingResizes.remove(target, resize);
+            resize.completeExceptionally(e);
+        }
+    }
+
+    private static boolean isUpToDate(Path variant, Path original) {
+        try {
+            return Files.isRegularFile(variant)
+                    && Files.getLastModifiedTime(variant).compareTo(Files.getLastModifiedTime(original)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scales an image down so that it fits in a square of the given size, and writes it as a JPEG.
+     * The file is written under a temporary name then moved, so a partially written variant is never served.
+     */
+    private static void resize(Path original, Path target, int maxDimension) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            throw new IOException("Unreadable image: " + original);
+        }
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            if (!ImageIO.write(resized, "jpg", temporary.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the resize workers when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        resizeExecutor.shutdownNow();
+    }
+}
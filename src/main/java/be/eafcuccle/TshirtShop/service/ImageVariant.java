@@ -0,0 +1,48 @@
+package be.eafcuccle.tshirtshop.service;
+
+import java.util.Locale;
+
+/**
+ * The fixed sizes in which product images are served.
+ * Each resized variant is bounded by a maximum width and height; {@link #FULL} is the original image.
+ */
+public enum ImageVariant {
+    THUMBNAIL(160),
+    CARD(480),
+    FULL(0);
+
+    private final int maxDimension;
+
+    ImageVariant(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * Returns the maximum width and height of the variant, or 0 for the original image.
+     *
+     * @return the maximum dimension in pixels
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Returns the name of the variant as used in URLs and file names.
+     *
+     * @return the lower-case name of the variant
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds a variant by its name, ignoring case.
+     *
+     * @param name the name of the variant
+     * @return the matching variant
+     * @throws IllegalArgumentException if no variant has this name
+     */
+    public static ImageVariant fromName(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
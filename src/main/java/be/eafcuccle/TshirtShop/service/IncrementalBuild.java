@@ -0,0 +1,90 @@
+package be.eafcuccle.tshirtshop.service;
+
+import be.eafcuccle.tshirtshop.models.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+
+/**
+ * Initial load of an in-memory view of the products, such as an index or counters, that the
+ * {@link CatalogChangeEvent}s keep up to date while the load runs.
+ * <p>
+ * The products are read in batches of {@value #BATCH_SIZE}, and each batch is applied to the view under its
+ * write lock. The change listener of the view reports every product it applies with {@link #changed(int)}:
+ * a product changed once the load has started is left out of the later batches, since the batch read may
+ * predate the change and the view already holds a more recent state.
+ */
+public class IncrementalBuild {
+
+    static final int BATCH_SIZE = 1000;
+
+    private final CatalogPageService catalogPageService;
+    private final Lock writeLock;
+    private final Set<Integer> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    /**
+     * Constructs an IncrementalBuild.
+     *
+     * @param catalogPageService the service reading the products in batches
+     * @param writeLock          the write lock of the view, held while a batch is applied
+     */
+    public IncrementalBuild(CatalogPageService catalogPageService, Lock writeLock) {
+        this.catalogPageService = catalogPageService;
+        this.writeLock = writeLock;
+    }
+
+    /**
+     * Loads every product into the view, then marks it ready.
+     *
+     * @param loader applies a batch of products to the view; called with the write lock held
+     */
+    public void run(Consumer<List<Product>> loader) {
+        changedDuringBuild.clear();
+        building = true;
+        try {
+            catalogPageService.forEachProductBatch(BATCH_SIZE, batch -> {
+                writeLock.lock();
+                try {
+                    List<Product> kept = new ArrayList<>(batch.size());
+                    for (Product product : batch) {
+                        if (!changedDuringBuild.contains(product.getProductId())) {
+                            kept.add(product);
+                        }
+                    }
+                    loader.accept(kept);
+                } finally {
+                    writeLock.unlock();
+                }
+            });
+            ready = true;
+        } finally {
+            building = false;
+            changedDuringBuild.clear();
+        }
+    }
+
+    /**
+     * Records that the view applied a change of a product, before taking its write lock.
+     *
+     * @param productId the ID of the changed product
+     */
+    public void changed(int productId) {
+        if (building) {
+            changedDuringBuild.add(productId);
+        }
+    }
+
+    /**
+     * Tells whether the view was loaded.
+     *
+     * @return true once {@link #run(Consumer)} completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+}
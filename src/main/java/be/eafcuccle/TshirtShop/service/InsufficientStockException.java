@@ -0,0 +1,37 @@
+package be.eafcuccle.tshirtshop.service;
+
+/**
+ * Thrown when a product has not enough stock for a reservation or a negative adjustment.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final int productId;
+    private final int requested;
+    private final int available;
+
+    /**
+     * Constructs an InsufficientStockException.
+     *
+     * @param productId the ID of the product
+     * @param requested the quantity that was requested
+     * @param available the quantity in stock when the request was refused
+     */
+    public InsufficientStockException(int productId, int requested, int available) {
+        super("Product " + productId + " has " + available + " in stock, " + requested + " requested");
+        this.productId = productId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,30 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import be.eafcuccle.tshirtshop.models.Command;
+import be.eafcuccle.tshirtshop.models.Prices;
+
+/**
+ * Service charging the orders. The shop has no payment provider yet, so every order is accepted;
+ * this is the single place where the provider call belongs. The call is made outside of any transaction, and
+ * may be repeated for an order whose processing was interrupted, so the provider must receive the order ID as
+ * its idempotency key.
+ */
+@Service
+public class PaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
+    /**
+     * Charges an order with its payment method.
+     *
+     * @param command the order to charge
+     * @return true if the payment was accepted, false if it was refused
+     */
+    public boolean charge(Command command) {
+        logger.info("Charged order {}: {} by {}", command.getId(), Prices.fromCents(command.getTotalCents()), command.getPayementType());
+        return true;
+    }
+}
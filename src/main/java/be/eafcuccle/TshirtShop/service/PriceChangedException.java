@@ -0,0 +1,27 @@
+package be.eafcuccle.tshirtshop.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Thrown at checkout when the total computed from the current product prices
+ * differs from the total the client accepted.
+ */
+public class PriceChangedException extends RuntimeException {
+
+    private final BigDecimal total;
+
+    /**
+     * Constructs a PriceChangedException.
+     *
+     * @param expected the total the client accepted
+     * @param total    the total at the current prices
+     */
+    public PriceChangedException(BigDecimal expected, BigDecimal total) {
+        super("The total is now " + total + " instead of " + expected);
+        this.total = total;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
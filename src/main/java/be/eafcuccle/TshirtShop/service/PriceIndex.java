@@ -0,0 +1,200 @@
+package be.eafcuccle.tshirtshop.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sorted index of product prices. Each product is one {@code long} key holding its price in cents in the
+ * high 32 bits and its ID in the low 32 bits, kept in a sorted primitive array: a price range is two binary
+ * searches, and the cheapest or most expensive products are read from either end, in (price, ID) order.
+ * The key of the last product of a page is a stable keyset cursor for the next one.
+ * <p>
+ * A single change shifts part of the array, which is cheap next to the reads it serves; a bulk load
+ * merges a sorted batch in one pass. The index is not thread-safe: callers hold their own lock.
+ */
+final class PriceIndex {
+
+    private long[] keys = new long[64];
+    private int size;
+    private final Map<Integer, Integer> prices = new HashMap<>();
+
+    /**
+     * Builds the key of a product.
+     *
+     * @param cents the price of the product, in cents, not negative
+     * @param id    the ID of the product, not negative
+     * @return the key, ordered by price then ID
+     */
+    static long key(int cents, int id) {
+        return (long) cents << 32 | id;
+    }
+
+    /**
+     * Adds a product, or moves it to its new price.
+     *
+     * @param id    the ID of the product
+     * @param cents the price of the product, in cents
+     */
+    void put(int id, int cents) {
+        remove(id);
+        long key = key(cents, id);
+        int position = -Arrays.binarySearch(keys, 0, size, key) - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        keys[position] = key;
+        size++;
+        prices.put(id, cents);
+    }
+
+    /**
+     * Adds a batch of products, merging their sorted keys into the index in one pass.
+     *
+     * @param ids   the IDs of the products, all different
+     * @param cents the price of each product, in cents
+     */
+    void putAll(int[] ids, int[] cents) {
+        long[] added = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            remove(ids[i]);
+            added[i] = key(cents[i], ids[i]);
+            prices.put(ids[i], cents[i]);
+        }
+        Arrays.sort(added);
+        long[] merged = new long[Math.max(keys.length, size + added.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < added.length) {
+            merged[k++] = keys[i] < added[j] ? keys[i++] : added[j++];
+        }
+        while (i < size) {
+            merged[k++] = keys[i++];
+        }
+        while (j < added.length) {
+            merged[k++] = added[j++];
+        }
+        keys = merged;
+        size = k;
+    }
+
+    /**
+     * Removes a product, if it is indexed.
+     *
+     * @param id the ID of the product
+     */
+    void remove(int id) {
+        Integer cents = prices.remove(id);
+        if (cents == null) {
+            return;
+        }
+        int position = Arrays.binarySearch(keys, 0, size, key(cents, id));
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        size--;
+    }
+
+    /**
+     * Returns the key of an indexed product.
+     *
+     * @param id the ID of the product
+     * @return the key of the product
+     * @throws IllegalArgumentException if the product is not indexed
+     */
+    long keyOf(int id) {
+        Integer cents = prices.get(id);
+        if (cents == null) {
+            throw new IllegalArgumentException("Product not indexed: " + id);
+        }
+        return key(cents, id);
+    }
+
+    /**
+     * Returns the products priced within the given bounds.
+     *
+     * @param minCents the minimum price, in cents, inclusive
+     * @param maxCents the maximum price, in cents, inclusive
+     * @return the IDs of the products, by ascending price
+     */
+    int[] between(int minCents, int maxCents) {
+        int from = lowerBound(key(minCents, 0));
+        int to = end(maxCents);
+        int[] ids = new int[Math.max(0, to - from)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[from + i];
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the cheapest products priced within the given bounds whose key is greater than the given one.
+     *
+     * @param minCents the minimum price, in cents, inclusive
+     * @param maxCents the maximum price, in cents, inclusive
+     * @param after    the key of the last product of the previous page, or {@link Long#MIN_VALUE}
+     * @param limit    the maximum number of products
+     * @return the IDs of the products, by ascending price then ID
+     */
+    int[] ascending(int minCents, int maxCents, long after, int limit) {
+        int from = Math.max(lowerBound(key(minCents, 0)), after == Long.MIN_VALUE ? 0 : lowerBound(after + 1));
+        int to = Math.min(end(maxCents), from + limit);
+        int[] ids = new int[Math.max(0, to - from)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[from + i];
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the most expensive products priced within the given bounds whose key is lower than the given one.
+     *
+     * @param minCents the minimum price, in cents, inclusive
+     * @param maxCents the maximum price, in cents, inclusive
+     * @param before   the key of the last product of the previous page, or {@link Long#MAX_VALUE}
+     * @param limit    the maximum number of products
+     * @return the IDs of the products, by descending price then ID
+     */
+    int[] descending(int minCents, int maxCents, long before, int limit) {
+        int to = Math.min(end(maxCents), lowerBound(before));
+        int from = Math.max(lowerBound(key(minCents, 0)), to - limit);
+        int[] ids = new int[Math.max(0, to - from)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[to - 1 - i];
+        }
+        return ids;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position after the last product priced at most the given price. The key above the highest
+     * price would overflow, so that price ends at the end of the array.
+     */
+    private int end(int maxCents) {
+        return maxCents == Integer.MAX_VALUE ? size : lowerBound(((long) maxCents + 1) << 32);
+    }
+
+    /**
+     * Returns the position of the first key greater than or equal to the given one.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(capacity, keys.length * 2));
+        }
+    }
+}
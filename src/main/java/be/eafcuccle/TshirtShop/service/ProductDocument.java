@@ -0,0 +1,127 @@
+package be.eafcuccle.tshirtshop.service;
+
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.models.Size;
+
+/**
+ * Immutable copy of the fields of a {@link Product} kept by the in-memory catalog indexes.
+ * It holds the names of the category and brand so that results can be rendered without a database query.
+ */
+public final class ProductDocument {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final String color;
+    private final int priceCents;
+    private final String categoryId;
+    private final String categoryName;
+    private final Integer brandId;
+    private final String brandName;
+    private final Size size;
+
+    private ProductDocument(Product p) {
+        id = p.getProductId();
+        name = p.getProductName();
+        description = p.getProductDescription();
+        color = p.getColor();
+        priceCents = p.getUnitPriceCents();
+        categoryId = p.getCategory().getId();
+        categoryName = p.getCategory().getName();
+        brandId = p.getBrand().getId();
+        brandName = p.getBrand().getName();
+        size = p.getSize();
+    }
+
+    private ProductDocument(ProductDocument d, String categoryName, String brandName) {
+        id = d.id;
+        name = d.name;
+        description = d.description;
+        color = d.color;
+        priceCents = d.priceCents;
+        categoryId = d.categoryId;
+        this.categoryName = categoryName;
+        brandId = d.brandId;
+        this.brandName = brandName;
+        size = d.size;
+    }
+
+    /**
+     * Copies the indexed fields of a product.
+     *
+     * @param product the product, with its category and brand loaded
+     * @return the document of the product
+     */
+    public static ProductDocument of(Product product) {
+        return new ProductDocument(product);
+    }
+
+    /**
+     * Returns a copy of this document after its category was renamed.
+     *
+     * @param categoryName the new name of the category
+     * @return the updated document
+     */
+    public ProductDocument withCategoryName(String categoryName) {
+        return new ProductDocument(this, categoryName, brandName);
+    }
+
+    /**
+     * Returns a copy of this document after its brand was renamed.
+     *
+     * @param brandName the new name of the brand
+     * @return the updated document
+     */
+    public ProductDocument withBrandName(String brandName) {
+        return new ProductDocument(this, categoryName, brandName);
+    }
+
+    /**
+     * Builds the listing representation of the product.
+     *
+     * @return the DTO of the product
+     */
+    public ProductDTO toDTO() {
+        return new ProductDTO(id, name, priceCents, categoryName);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public int getPriceCents() {
+        return priceCents;
+    }
+
+    public String getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Integer getBrandId() {
+        return brandId;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public Size getSize() {
+        return size;
+    }
+}
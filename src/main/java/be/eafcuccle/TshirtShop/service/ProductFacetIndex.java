@@ -0,0 +1,371 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
+import be.eafcuccle.tshirtshop.dto.FacetResult;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import be.eafcuccle.tshirtshop.models.Prices;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory facet index of the products. Each value of each facet (category name, brand name, size, color)
+ * holds a compressed bitmap of the IDs of the products having that value, so any combination of filters
+ * is answered with bitmap intersections, and the count of every facet value with one intersection
+ * cardinality, without querying the database. A {@link PriceIndex} sorts the products by price, for price
+ * filters and for listings of the cheapest or most expensive products.
+ * <p>
+ * The index is built when the application is ready, then kept up to date from the
+ * {@link CatalogChangeEvent}s of committed transactions.
+ */
+@Service
+public class ProductFacetIndex {
+
+    /**
+     * The dimensions products can be filtered on.
+     */
+    public enum Facet {
+        CATEGORY, BRAND, SIZE, COLOR;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    private final int[] priceBounds;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IncrementalBuild build;
+    private final Map<Facet, Map<String, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+    private final Map<Integer, ProductDocument> documents = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final PriceIndex prices = new PriceIndex();
+
+    /**
+     * Constructs a ProductFacetIndex loading the products through the given service.
+     *
+     * @param catalogPageService the service reading the products in batches
+     * @param priceBounds        the ascending bounds of the price ranges reported in the price facet
+     */
+    public ProductFacetIndex(CatalogPageService catalogPageService,
+                             @Value("${tshirtshop.facets.price-bounds:10,20,30,50}") BigDecimal[] priceBounds) {
+        this.build = new IncrementalBuild(catalogPageService, lock.writeLock());
+        this.priceBounds = Arrays.stream(priceBounds).mapToInt(Prices::toCents).sorted().toArray();
+        for (Facet facet : Facet.values()) {
+            bitmaps.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Builds the index from the database; the prices of each batch are merged into the price index at once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        build.run(batch -> {
+            List<ProductDocument> loaded = batch.stream().map(ProductDocument::of).toList();
+            loaded.forEach(this::putFacets);
+            prices.putAll(loaded.stream().mapToInt(ProductDocument::getId).toArray(),
+                    loaded.stream().mapToInt(ProductDocument::getPriceCents).toArray());
+        });
+        logger.info("Built the facets of {} products in {} ms", all.getCardinality(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies a committed catalog change to the index, before the {@link CatalogVersion} changes.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        switch (event.getKind()) {
+            case PRODUCT -> {
+                Integer id = event.getProduct().getProductId();
+                build.changed(id);
+                lock.writeLock().lock();
+                try {
+                    if (event.getType() == CatalogChangeEvent.Type.DELETED) {
+                        remove(id);
+                        prices.remove(id);
+                    } else {
+                        put(ProductDocument.of(event.getProduct()));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            case CATEGORY -> {
+                if (event.getType() == CatalogChangeEvent.Type.UPDATED) {
+                    String categoryId = event.getCategory().getId();
+                    String name = event.getCategory().getName();
+                    reindexWhere(document -> document.getCategoryId().equals(categoryId),
+                            document -> document.withCategoryName(name));
+                }
+            }
+            case BRAND -> {
+                if (event.getType() == CatalogChangeEvent.Type.UPDATED) {
+                    Integer brandId = event.getBrand().getId();
+                    String name = event.getBrand().getName();
+                    reindexWhere(document -> document.getBrandId().equals(brandId),
+                            document -> document.withBrandName(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Filters the products on any combination of facet values and price range.
+     * Values of the same facet are combined with OR, facets with AND.
+     *
+     * @param selections the selected values of each facet; facets without values are not filtered
+     * @param minPrice   the minimum unit price, or null
+     * @param maxPrice   the maximum unit price, or null
+     * @param cursor     the cursor returned with the previous page, or null for the first page
+     * @param limit      the maximum number of products in the page
+     * @return the requested page of matching products, ordered by ID, with the facet counts
+     * @throws IllegalArgumentException if the cursor is invalid
+     * @throws IllegalStateException    if the index is not built yet
+     */
+    public FacetResult filter(Map<Facet, Collection<String>> selections, BigDecimal minPrice, BigDecimal maxPrice,
+                              String cursor, int limit) {
+        if (!build.isReady()) {
+            throw new IllegalStateException("The facet index is not built yet");
+        }
+        int offset = cursor == null || cursor.isEmpty() ? 0 : Integer.parseInt(cursor);
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        lock.readLock().lock();
+        try {
+            Map<Facet, Collection<String>> chosen = new EnumMap<>(Facet.class);
+            Map<Facet, RoaringBitmap> selected = new EnumMap<>(Facet.class);
+            selections.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    chosen.put(facet, values);
+                    selected.put(facet, union(facet, values));
+                }
+            });
+            RoaringBitmap priceMatches = minPrice == null && maxPrice == null ? null
+                    : RoaringBitmap.bitmapOfUnordered(prices.between(minCents(minPrice), maxCents(maxPrice)));
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                RoaringBitmap base = intersect(selected, facet, priceMatches);
+                Map<String, Integer> counts = new TreeMap<>();
+                bitmaps.get(facet).forEach((value, products) -> {
+                    int count = RoaringBitmap.andCardinality(base, products);
+                    if (count > 0 || chosen.getOrDefault(facet, List.of()).contains(value)) {
+                        counts.put(value, count);
+                    }
+                });
+                facets.put(facet.getName(), counts);
+            }
+            facets.put("price", priceCounts(intersect(selected, null, null)));
+
+            RoaringBitmap matching = intersect(selected, null, priceMatches);
+            int total = matching.getCardinality();
+            List<ProductDTO> items = new ArrayList<>();
+            if (offset < total) {
+                PeekableIntIterator iterator = matching.getIntIterator();
+                iterator.advanceIfNeeded(matching.select(offset));
+                while (iterator.hasNext() && items.size() < limit) {
+                    items.add(documents.get(iterator.next()).toDTO());
+                }
+            }
+            String next = offset + limit < total ? String.valueOf(offset + limit) : null;
+            return new FacetResult(items, next, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the products priced within the given bounds, cheapest or most expensive first,
+     * from the sorted price index. The first page is the top-K of the range.
+     *
+     * @param minPrice   the minimum unit price, or null
+     * @param maxPrice   the maximum unit price, or null
+     * @param descending true to list the most expensive products first
+     * @param cursor     the cursor returned with the previous page, or null for the first page
+     * @param limit      the maximum number of products in the page
+     * @return the requested page of products, ordered by price then ID
+     * @throws IllegalArgumentException if the cursor is invalid
+     * @throws IllegalStateException    if the index is not built yet
+     */
+    public CursorPage<ProductDTO> byPrice(BigDecimal minPrice, BigDecimal maxPrice, boolean descending,
+                                          String cursor, int limit) {
+        if (!build.isReady()) {
+            throw new IllegalStateException("The facet index is not built yet");
+        }
+        long after = cursor == null || cursor.isEmpty() ? (descending ? Long.MAX_VALUE : Long.MIN_VALUE)
+                : Long.parseLong(cursor, Character.MAX_RADIX);
+        lock.readLock().lock();
+        try {
+            int min = minCents(minPrice);
+            int max = maxCents(maxPrice);
+            int[] ids = descending ? prices.descending(min, max, after, limit + 1) : prices.ascending(min, max, after, limit + 1);
+            List<ProductDTO> items = new ArrayList<>(Math.min(ids.length, limit));
+            for (int i = 0; i < ids.length && i < limit; i++) {
+                items.add(documents.get(ids[i]).toDTO());
+            }
+            String next = ids.length > limit ? Long.toString(prices.keyOf(ids[limit - 1]), Character.MAX_RADIX) : null;
+            return new CursorPage<>(items, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the union of the bitmaps of the given values of a facet. Must be called with the read lock held.
+     */
+    private RoaringBitmap union(Facet facet, Collection<String> values) {
+        List<RoaringBitmap> matches = new ArrayList<>();
+        for (String value : values) {
+            RoaringBitmap products = bitmaps.get(facet).get(value);
+            if (products != null) {
+                matches.add(products);
+            }
+        }
+        return FastAggregation.or(matches.iterator());
+    }
+
+    /**
+     * Intersects the selections of every facet except the excluded one, and the price matches if any.
+     * Must be called with the read lock held.
+     */
+    private RoaringBitmap intersect(Map<Facet, RoaringBitmap> selected, Facet excluded, RoaringBitmap priceMatches) {
+        List<RoaringBitmap> filters = new ArrayList<>();
+        selected.forEach((facet, products) -> {
+            if (facet != excluded) {
+                filters.add(products);
+            }
+        });
+        if (priceMatches != null) {
+            filters.add(priceMatches);
+        }
+        if (filters.isEmpty()) {
+            return all.clone();
+        }
+        return filters.size() == 1 ? filters.get(0).clone() : FastAggregation.and(filters.iterator());
+    }
+
+    private static int minCents(BigDecimal minPrice) {
+        return minPrice == null ? 0 : Math.max(0, clampedCents(minPrice));
+    }
+
+    private static int maxCents(BigDecimal maxPrice) {
+        return maxPrice == null ? Integer.MAX_VALUE : clampedCents(maxPrice);
+    }
+
+    /**
+     * Converts a price bound to cents, clamping the bounds too large for an int of cents.
+     */
+    private static int clampedCents(BigDecimal price) {
+        try {
+            return Prices.toCents(price);
+        } catch (ArithmeticException e) {
+            return price.signum() > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Counts the given products in each configured price range. Must be called with the read lock held.
+     */
+    private Map<String, Integer> priceCounts(RoaringBitmap products) {
+        int[] counts = new int[priceBounds.length + 1];
+        products.forEach((int id) -> {
+            int bucket = Arrays.binarySearch(priceBounds, documents.get(id).getPriceCents());
+            counts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        });
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            String low = i == 0 ? "0" : formatPrice(priceBounds[i - 1]);
+            String label = i == priceBounds.length ? low + "+" : low + "-" + formatPrice(priceBounds[i]);
+            result.put(label, counts[i]);
+        }
+        return result;
+    }
+
+    private static String formatPrice(int cents) {
+        return Prices.fromCents(cents).stripTrailingZeros().toPlainString();
+    }
+
+    private void reindexWhere(Predicate<ProductDocument> filter, UnaryOperator<ProductDocument> update) {
+        lock.writeLock().lock();
+        try {
+            List<ProductDocument> changed = documents.values().stream().filter(filter).toList();
+            for (ProductDocument document : changed) {
+                putFacets(update.apply(document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a document to the index. Must be called with the write lock held.
+     */
+    private void put(ProductDocument document) {
+        putFacets(document);
+        prices.put(document.getId(), document.getPriceCents());
+    }
+
+    /**
+     * Adds a document to the facet bitmaps, but not to the price index. Must be called with the write lock held.
+     */
+    private void putFacets(ProductDocument document) {
+        remove(document.getId());
+        documents.put(document.getId(), document);
+        all.add(document.getId());
+        for (Facet facet : Facet.values()) {
+            bitmaps.get(facet).computeIfAbsent(valueOf(document, facet), value -> new RoaringBitmap())
+                    .add(document.getId());
+        }
+    }
+
+    /**
+     * Removes a document from the facet bitmaps. Must be called with the write lock held.
+     */
+    private void remove(int id) {
+        ProductDocument document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        all.remove(id);
+        for (Facet facet : Facet.values()) {
+            String value = valueOf(document, facet);
+            RoaringBitmap products = bitmaps.get(facet).get(value);
+            products.remove(id);
+            if (products.isEmpty()) {
+                bitmaps.get(facet).remove(value);
+            }
+        }
+    }
+
+    private static String valueOf(ProductDocument document, Facet facet) {
+        return switch (facet) {
+            case CATEGORY -> document.getCategoryName();
+            case BRAND -> document.getBrandName();
+            case SIZE -> document.getSize().name();
+            case COLOR -> document.getColor();
+        };
+    }
+}
@@ -0,0 +1,235 @@
+package be.eafcuccle.tshirtshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import be.eafcuccle.tshirtshop.dto.ImportReport;
+import be.eafcuccle.tshirtshop.dto.ProductImportRow;
+import be.eafcuccle.tshirtshop.models.Brand;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.repositories.BrandRepository;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing products in bulk from a CSV or NDJSON stream.
+ * <p>
+ * The input is read one row at a time, so a file of any size is imported in constant memory. Each row is
+ * checked against the bean-validation constraints of {@link Product}, with its category and brand resolved
+ * by name from maps loaded once per import. Valid rows are inserted in chunks, one transaction per chunk;
+ * within a chunk Hibernate sends the inserts in JDBC batches, which the sequence-generated product IDs allow.
+ * A chunk rejected by the database does not stop the import: its rows are reported and the next chunk goes on.
+ */
+@Service
+public class ProductImportService {
+
+    /**
+     * The supported input formats.
+     */
+    public enum Format {
+        /** Comma-separated values with a header row naming the columns. */
+        CSV,
+        /** One JSON object per line. */
+        NDJSON
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final int chunkSize;
+
+    /**
+     * Constructs a ProductImportService.
+     *
+     * @param entityManager      the entity manager persisting the products
+     * @param transactionManager the transaction manager of the chunk transactions
+     * @param validator          the validator checking each row
+     * @param objectMapper       the mapper reading the NDJSON lines
+     * @param categoryRepository the repository for Category entities
+     * @param brandRepository    the repository for Brand entities
+     * @param chunkSize          the number of products inserted per transaction
+     */
+    public ProductImportService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                Validator validator, ObjectMapper objectMapper,
+                                CategoryRepository categoryRepository, BrandRepository brandRepository,
+                                @Value("${tshirtshop.import.chunk-size:1000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .build();
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports the products read from a stream.
+     *
+     * @param input  the stream to read, which is not closed
+     * @param format the format of the stream
+     * @return the number of imported and rejected rows, with the reason of each rejection
+     * @throws IOException if the stream cannot be read
+     */
+    public ImportReport importProducts(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        Importer importer = new Importer(
+                categoryRepository.findAll().stream().collect(Collectors.toMap(Category::getName, Function.identity())),
+                brandRepository.findAll().stream().collect(Collectors.toMap(Brand::getName, Function.identity())));
+        try {
+            switch (format) {
+                case CSV -> readCsv(input, importer);
+                case NDJSON -> readNdjson(input, importer);
+            }
+        } catch (JsonProcessingException e) {
+            importer.report.rejected(importer.row, "Malformed input, the import stopped here: " + e.getOriginalMessage());
+        } finally {
+            importer.flush();
+        }
+        logger.info("Imported {} products and rejected {} rows in {} ms", importer.report.getImported(),
+                importer.report.getRejected(), (System.nanoTime() - start) / 1_000_000);
+        return importer.report;
+    }
+
+    private void readCsv(InputStream input, Importer importer) throws IOException {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<ProductImportRow> rows = csvMapper.readerFor(ProductImportRow.class)
+                .with(schema).readValues(input)) {
+            while (rows.hasNextValue()) {
+                importer.row++;
+                try {
+                    importer.add(rows.nextValue());
+                } catch (JsonMappingException e) {
+                    importer.report.rejected(importer.row, e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    private void readNdjson(InputStream input, Importer importer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            importer.row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                importer.add(objectMapper.readValue(line, ProductImportRow.class));
+            } catch (JsonProcessingException e) {
+                importer.report.rejected(importer.row, e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * The state of one import: the lookup maps, the pending chunk and the report.
+     */
+    private final class Importer {
+        private final Map<String, Category> categories;
+        private final Map<String, Brand> brands;
+        private final List<Product> chunk = new ArrayList<>();
+        private final List<Long> chunkRows = new ArrayList<>();
+        private final ImportReport report = new ImportReport(MAX_REPORTED_ERRORS);
+        private long row;
+
+        private Importer(Map<String, Category> categories, Map<String, Brand> brands) {
+            this.categories = categories;
+            this.brands = brands;
+        }
+
+        /**
+         * Validates a row and adds it to the pending chunk, inserting the chunk once full.
+         */
+        private void add(ProductImportRow source) {
+            Category category = categories.get(source.getCategory());
+            if (category == null) {
+                report.rejected(row, "Unknown category: " + source.getCategory());
+                return;
+            }
+            Brand brand = brands.get(source.getBrand());
+            if (brand == null) {
+                report.rejected(row, "Unknown brand: " + source.getBrand());
+                return;
+            }
+            Product product;
+            try {
+                product = new Product(source.getName(), source.getDescription(),
+                        source.getPrice(),
+                        source.getStock() == null ? 0 : source.getStock(),
+                        source.getColor(), category, brand, source.getSize());
+            } catch (ArithmeticException e) {
+                report.rejected(row, "price: out of range: " + source.getPrice());
+                return;
+            }
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                report.rejected(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            chunk.add(product);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Inserts the pending chunk in its own transaction, then detaches the inserted products
+         * so that the persistence context does not grow with the import.
+         */
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    chunk.forEach(entityManager::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                report.imported(chunk.size());
+            } catch (RuntimeException e) {
+                logger.warn("Rejected a chunk of {} imported products", chunk.size(), e);
+                String message = "Rejected by the database: " + e.getMessage();
+                chunkRows.forEach(chunkRow -> report.rejected(chunkRow, message));
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+}
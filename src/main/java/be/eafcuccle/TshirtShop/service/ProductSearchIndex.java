@@ -0,0 +1,301 @@
+package be.eafcuccle.tshirtshop.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import be.eafcuccle.tshirtshop.dto.CursorPage;
+import be.eafcuccle.tshirtshop.dto.ProductDTO;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the product name, description, color, brand name and category name.
+ * <p>
+ * Text is tokenized on non-alphanumeric characters, lower-cased and stripped of its accents, so that
+ * "Garçon" and "garcon" match. Every query term must match a product; the last one also matches as a
+ * prefix, for search-as-you-type. Results are ranked by the sum of the field weights of the matching
+ * terms, multiplied by the inverse document frequency of each term.
+ * <p>
+ * The index is built when the application is ready, then kept up to date from the
+ * {@link CatalogChangeEvent}s of committed transactions.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float COLOR_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_PENALTY = 0.5f;
+    private static final Comparator<Map.Entry<Integer, Float>> BEST_FIRST =
+            Map.Entry.<Integer, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IncrementalBuild build;
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private final Map<Integer, ProductDocument> documents = new HashMap<>();
+
+    /**
+     * Constructs a ProductSearchIndex loading the products through the given service.
+     *
+     * @param catalogPageService the service reading the products in batches
+     */
+    public ProductSearchIndex(CatalogPageService catalogPageService) {
+        this.build = new IncrementalBuild(catalogPageService, lock.writeLock());
+    }
+
+    /**
+     * Builds the index from the database, alongside the changes applied meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        build.run(batch -> batch.forEach(product -> put(ProductDocument.of(product))));
+        logger.info("Indexed {} products in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies a committed catalog change to the index, before the {@link CatalogVersion} changes.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        switch (event.getKind()) {
+            case PRODUCT -> {
+                Integer id = event.getProduct().getProductId();
+                build.changed(id);
+                lock.writeLock().lock();
+                try {
+                    remove(id);
+                    if (event.getType() != CatalogChangeEvent.Type.DELETED) {
+                        put(ProductDocument.of(event.getProduct()));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            case CATEGORY -> {
+                if (event.getType() == CatalogChangeEvent.Type.UPDATED) {
+                    String categoryId = event.getCategory().getId();
+                    String name = event.getCategory().getName();
+                    reindexWhere(document -> document.getCategoryId().equals(categoryId),
+                            document -> document.withCategoryName(name));
+                }
+            }
+            case BRAND -> {
+                if (event.getType() == CatalogChangeEvent.Type.UPDATED) {
+                    Integer brandId = event.getBrand().getId();
+                    String name = event.getBrand().getName();
+                    reindexWhere(document -> document.getBrandId().equals(brandId),
+                            document -> document.withBrandName(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the products matching a text query.
+     *
+     * @param query  the text to search for
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of results in the page
+     * @return the requested page of results, best match first
+     * @throws IllegalArgumentException if the cursor is invalid
+     * @throws IllegalStateException    if the index is not built yet
+     */
+    public CursorPage<ProductDTO> search(String query, String cursor, int limit) {
+        if (!build.isReady()) {
+            throw new IllegalStateException("The search index is not built yet");
+        }
+        int offset = cursor == null || cursor.isEmpty() ? 0 : Integer.parseInt(cursor);
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Float> scores = score(terms.get(0), terms.size() == 1);
+            for (int i = 1; i < terms.size() && !scores.isEmpty(); i++) {
+                Map<Integer, Float> matches = score(terms.get(i), i == terms.size() - 1);
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((id, score) -> score + matches.get(id));
+            }
+            long end = (long) offset + limit;
+            List<Map.Entry<Integer, Float>> ranked = top(scores, (int) Math.min(end, scores.size()));
+            List<ProductDTO> items = new ArrayList<>();
+            for (int i = offset; i < ranked.size(); i++) {
+                items.add(documents.get(ranked.get(i).getKey()).toDTO());
+            }
+            String next = end < scores.size() ? String.valueOf(end) : null;
+            return new CursorPage<>(items, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed copy of a product.
+     *
+     * @param productId the ID of the product
+     * @return an {@link Optional} containing the document if the product is indexed, or empty otherwise
+     */
+    public Optional<ProductDocument> find(int productId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(documents.get(productId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return the number of products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a text into lower-case, accent-free terms.
+     *
+     * @param text the text to tokenize, may be null
+     * @return the terms of the text, in order
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Computes the score of every product matching a query term. Must be called with the read lock held.
+     */
+    private Map<Integer, Float> score(String term, boolean prefix) {
+        Map<Integer, Float> scores = new HashMap<>();
+        Map<String, Map<Integer, Float>> matching = prefix
+                ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                : postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of();
+        matching.forEach((indexedTerm, products) -> {
+            float idf = (float) Math.log(1 + (double) documents.size() / products.size());
+            float factor = indexedTerm.equals(term) ? idf : idf * PREFIX_PENALTY;
+            products.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        });
+        return scores;
+    }
+
+    /**
+     * Returns the best {@code count} scores, best first, keeping only that many entries in a heap
+     * instead of sorting every match.
+     */
+    private static List<Map.Entry<Integer, Float>> top(Map<Integer, Float> scores, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(count, BEST_FIRST.reversed());
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            if (heap.size() < count) {
+                heap.add(entry);
+            } else if (BEST_FIRST.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private void reindexWhere(Predicate<ProductDocument> filter, UnaryOperator<ProductDocument> update) {
+        lock.writeLock().lock();
+        try {
+            List<ProductDocument> changed = documents.values().stream().filter(filter).toList();
+            for (ProductDocument document : changed) {
+                remove(document.getId());
+                put(update.apply(document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a document to the index. Must be called with the write lock held.
+     */
+    private void put(ProductDocument document) {
+        remove(document.getId());
+        documents.put(document.getId(), document);
+        termWeights(document).forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.getId(), weight));
+    }
+
+    /**
+     * Removes a document from the index. Must be called with the write lock held.
+     */
+    private void remove(int id) {
+        ProductDocument document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : termWeights(document).keySet()) {
+            Map<Integer, Float> products = postings.get(term);
+            products.remove(id);
+            if (products.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static Map<String, Float> termWeights(ProductDocument document) {
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, document.getName(), NAME_WEIGHT);
+        addTerms(weights, document.getBrandName(), BRAND_WEIGHT);
+        addTerms(weights, document.getCategoryName(), CATEGORY_WEIGHT);
+        addTerms(weights, document.getColor(), COLOR_WEIGHT);
+        addTerms(weights, document.getDescription(), DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+}
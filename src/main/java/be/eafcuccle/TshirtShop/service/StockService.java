@@ -0,0 +1,220 @@
+package be.eafcuccle.tshirtshop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import be.eafcuccle.tshirtshop.dto.StockItem;
+import be.eafcuccle.tshirtshop.models.Product;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Service changing the stock of the products with conditional atomic updates.
+ * <p>
+ * Every change is a single {@code UPDATE ... WHERE quantity_in_stock >= -delta} statement, so the check
+ * and the write cannot be interleaved with another buyer's and the stock never goes negative. The same statement
+ * refuses a stock that would no longer fit in its INT column. A basket is
+ * reserved in one transaction, in ascending product ID order: two baskets sharing products lock their rows
+ * in the same order and cannot deadlock, and a basket is either fully reserved or not at all.
+ * <p>
+ * The updates are sent with JDBC rather than as JPQL bulk updates, which would make Hibernate drop every
+ * product from the second-level cache. Only the changed products are evicted instead, once more when the
+ * transaction ends so that a concurrent read cannot put the previous stock back in the cache. The new stock is
+ * recorded in the {@link CatalogOutbox} in the same transaction.
+ */
+@Service
+public class StockService {
+
+    /**
+     * The largest quantity a single adjustment may add or remove.
+     */
+    public static final int MAX_ADJUSTMENT = 1_000_000;
+
+    private static final String ADD_SQL = "UPDATE product SET quantity_in_stock = quantity_in_stock + ?"
+            + " WHERE product_id = ? AND quantity_in_stock >= ? AND quantity_in_stock <= ?";
+    private static final String RESERVE_SQL =
+            "UPDATE product SET quantity_in_stock = quantity_in_stock - ? WHERE product_id = ? AND quantity_in_stock >= ?";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogVersion catalogVersion;
+    private final CatalogOutbox catalogOutbox;
+
+    /**
+     * Constructs a StockService with dependencies for the product repository and the JDBC template.
+     *
+     * @param productRepository    the repository for Product entities
+     * @param jdbcTemplate         the JDBC template sending the stock updates
+     * @param entityManagerFactory the factory whose second-level cache holds the products
+     * @param catalogVersion       the catalog version, changed by every stock update
+     * @param catalogOutbox        the outbox recording every stock update
+     */
+    public StockService(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                        EntityManagerFactory entityManagerFactory, CatalogVersion catalogVersion,
+                        CatalogOutbox catalogOutbox) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.catalogVersion = catalogVersion;
+        this.catalogOutbox = catalogOutbox;
+    }
+
+    /**
+     * Takes a quantity of a product out of the stock.
+     *
+     * @param productId the ID of the product
+     * @param quantity  the quantity to reserve
+     * @return an {@link Optional} containing the remaining stock, or empty if the product does not exist
+     * @throws IllegalArgumentException   if the quantity is not positive
+     * @throws InsufficientStockException if the stock is lower than the quantity
+     */
+    @Transactional
+    public Optional<Integer> reserve(int productId, int quantity) {
+        requirePositive(quantity);
+        return change(productId, -quantity, quantity);
+    }
+
+    /**
+     * Puts a previously reserved quantity of a product back in the stock.
+     *
+     * @param productId the ID of the product
+     * @param quantity  the quantity to release
+     * @return an {@link Optional} containing the new stock, or empty if the product does not exist
+     * @throws IllegalArgumentException if the quantity is not positive or the stock would overflow
+     */
+    @Transactional
+    public Optional<Integer> release(int productId, int quantity) {
+        requirePositive(quantity);
+        return change(productId, quantity, 0);
+    }
+
+    /**
+     * Corrects the stock of a product, for instance after a delivery or an inventory.
+     *
+     * @param productId the ID of the product
+     * @param delta     the quantity to add, negative to remove
+     * @return an {@link Optional} containing the new stock, or empty if the product does not exist
+     * @throws IllegalArgumentException   if the stock would overflow
+     * @throws InsufficientStockException if removing the quantity would make the stock negative
+     */
+    @Transactional
+    public Optional<Integer> adjust(int productId, int delta) {
+        return change(productId, delta, -delta);
+    }
+
+    /**
+     * Reserves a whole basket, or nothing if any product is missing or out of stock.
+     *
+     * @param items the products and quantities to reserve; a product listed twice is reserved once with the total
+     * @return the remaining stock of each product, by ascending product ID
+     * @throws IllegalArgumentException   if a product does not exist or a quantity is not positive
+     * @throws InsufficientStockException if the stock of a product is lower than its quantity
+     */
+    @Transactional
+    public Map<Integer, Integer> reserveAll(List<StockItem> items) {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (StockItem item : items) {
+            requirePositive(item.getQuantity());
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        Map<Integer, Integer> remaining = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> remaining.put(productId, change(productId, -quantity, quantity)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown product: " + productId))));
+        return remaining;
+    }
+
+    /**
+     * Reserves a whole basket with one JDBC batch of conditional updates, sent in ascending product ID order.
+     * Unlike {@link #reserveAll(List)}, it does not read the remaining stock back, so it costs a single round trip.
+     * It must run in the caller's transaction, which a refusal rolls back.
+     *
+     * @param quantities the quantity to reserve of each product, all positive
+     * @throws InsufficientStockException if a product does not exist or has not enough stock
+     */
+    @Transactional
+    public void reserveBatch(Map<Integer, Integer> quantities) {
+        List<Map.Entry<Integer, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setInt(1, items.get(i).getValue());
+                statement.setInt(2, items.get(i).getKey());
+                statement.setInt(3, items.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+        evict(quantities.keySet());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Map.Entry<Integer, Integer> item = items.get(i);
+                throw new InsufficientStockException(item.getKey(), item.getValue(),
+                        productRepository.findQuantityInStock(item.getKey()).orElse(0));
+            }
+        }
+        catalogOutbox.recordStock(quantities.keySet());
+    }
+
+    /**
+     * Applies a conditional update, then reads the resulting stock; as the updated row stays locked
+     * until the transaction ends, the value read is the one just written. The bounds of the stock are
+     * computed as longs, so that no delta overflows them.
+     */
+    private Optional<Integer> change(int productId, int delta, int requested) {
+        long maxStock = (long) Integer.MAX_VALUE - delta;
+        if (jdbcTemplate.update(ADD_SQL, delta, productId, -(long) delta, maxStock) == 1) {
+            evict(List.of(productId));
+            catalogOutbox.recordStock(List.of(productId));
+            return productRepository.findQuantityInStock(productId);
+        }
+        Optional<Integer> available = productRepository.findQuantityInStock(productId);
+        if (available.isEmpty()) {
+            return Optional.empty();
+        }
+        if (available.get() > maxStock) {
+            throw new IllegalArgumentException("The stock of product " + productId + " would overflow");
+        }
+        throw new InsufficientStockException(productId, requested, available.get());
+    }
+
+    /**
+     * Evicts products from the second-level cache now and again after the commit, then changes the
+     * catalog version, since these updates publish no {@link CatalogChangeEvent}. The second eviction has the
+     * highest precedence, so it runs before the version changes.
+     */
+    private void evict(Collection<Integer> productIds) {
+        List<Integer> ids = List.copyOf(productIds);
+        ids.forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+                }
+            });
+        }
+        catalogVersion.incrementAfterCompletion();
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be positive");
+        }
+    }
+}
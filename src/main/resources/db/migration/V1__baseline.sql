@@ -0,0 +1,89 @@
+-- The schema as Hibernate created it from the entities, before prices moved to integer cents.
+-- Written to run on MySQL and on H2 in MySQL mode, which the tests and benchmarks boot on.
+
+CREATE TABLE category (
+    id VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_category_name UNIQUE (name)
+);
+
+CREATE TABLE brand (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_brand_name UNIQUE (name)
+);
+
+-- Emulates the product_seq sequence, which MySQL lacks; Hibernate hands out blocks of 50 IDs from it.
+CREATE TABLE product_seq (
+    next_val BIGINT
+);
+INSERT INTO product_seq VALUES (1);
+
+CREATE TABLE product (
+    product_id INTEGER NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    product_description VARCHAR(255),
+    unit_price FLOAT NOT NULL,
+    quantity_in_stock INTEGER NOT NULL,
+    color VARCHAR(255) NOT NULL,
+    category_id VARCHAR(255) NOT NULL,
+    brand_id INTEGER NOT NULL,
+    size ENUM('XS', 'S', 'M', 'L', 'XL', 'XXL'),
+    image_path VARCHAR(255),
+    PRIMARY KEY (product_id),
+    CONSTRAINT fk_product_category FOREIGN KEY (category_id) REFERENCES category (id),
+    CONSTRAINT fk_product_brand FOREIGN KEY (brand_id) REFERENCES brand (id)
+);
+CREATE INDEX idx_product_category_id ON product (category_id, product_id);
+
+CREATE TABLE bag (
+    id VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    checked_out_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bag_line (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    bag_id VARCHAR(255) NOT NULL,
+    product_id INTEGER NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price FLOAT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bag_line_bag FOREIGN KEY (bag_id) REFERENCES bag (id)
+);
+
+CREATE TABLE command (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    cart_id VARCHAR(255) NOT NULL,
+    status ENUM('PENDING', 'PAID', 'PAYMENT_FAILED') NOT NULL,
+    payement_type ENUM('PAYPAL', 'CREDITCARD', 'DEBITCARD', 'BANKTRANSFER') NOT NULL,
+    total FLOAT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_command_status_created_at ON command (status, created_at);
+
+CREATE TABLE command_lines (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    command_id BIGINT NOT NULL,
+    product_id INTEGER NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price FLOAT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_command_lines_command FOREIGN KEY (command_id) REFERENCES command (id)
+);
+
+CREATE TABLE delivery (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    command_id BIGINT NOT NULL,
+    status ENUM('CREATED', 'PROCESSING', 'DELIVERED', 'CANCELLED') NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_delivery_command UNIQUE (command_id),
+    CONSTRAINT fk_delivery_command FOREIGN KEY (command_id) REFERENCES command (id)
+);
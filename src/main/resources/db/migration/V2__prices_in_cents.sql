@@ -0,0 +1,24 @@
+-- Prices move from FLOAT amounts to integer cents.
+-- A FLOAT such as 15.95 is stored as 15.9499998..., so every amount is rounded to the nearest cent.
+
+ALTER TABLE product ADD COLUMN unit_price_cents INT NULL;
+UPDATE product SET unit_price_cents = ROUND(unit_price * 100);
+ALTER TABLE product MODIFY unit_price_cents INT NOT NULL;
+ALTER TABLE product DROP COLUMN unit_price;
+
+ALTER TABLE bag_line ADD COLUMN unit_price_cents INT NULL;
+UPDATE bag_line SET unit_price_cents = ROUND(unit_price * 100);
+ALTER TABLE bag_line MODIFY unit_price_cents INT NOT NULL;
+ALTER TABLE bag_line DROP COLUMN unit_price;
+
+ALTER TABLE command_lines ADD COLUMN unit_price_cents INT NULL;
+UPDATE command_lines SET unit_price_cents = ROUND(unit_price * 100);
+ALTER TABLE command_lines MODIFY unit_price_cents INT NOT NULL;
+ALTER TABLE command_lines DROP COLUMN unit_price;
+
+-- The totals are recomputed exactly from the converted lines rather than rounded from the FLOAT sums.
+ALTER TABLE command ADD COLUMN total_cents BIGINT NULL;
+UPDATE command c SET total_cents = (SELECT COALESCE(SUM(l.unit_price_cents * l.quantity), 0)
+                                    FROM command_lines l WHERE l.command_id = c.id);
+ALTER TABLE command MODIFY total_cents BIGINT NOT NULL;
+ALTER TABLE command DROP COLUMN total;
@@ -0,0 +1,14 @@
+-- Indexes for the catalog filters and keyset pages. Each one ends with the primary key, the tie-breaker
+-- of the pages, so a page is read in index order without a sort.
+
+-- Products of a brand, and the brand-products collection.
+CREATE INDEX idx_product_brand_id ON product (brand_id, product_id);
+
+-- Price ranges and the pages ordered by price.
+CREATE INDEX idx_product_unit_price_cents ON product (unit_price_cents, product_id);
+
+-- Products in stock.
+CREATE INDEX idx_product_quantity_in_stock ON product (quantity_in_stock);
+
+-- The pages ordered by name, and name prefixes. Substring searches are answered by the in-memory search index.
+CREATE INDEX idx_product_name ON product (product_name, product_id);
@@ -0,0 +1,7 @@
+-- The fixture datasets loaded into this database, one row per dataset and version, so that each is seeded once.
+CREATE TABLE seed_dataset (
+    name VARCHAR(64) NOT NULL,
+    version INTEGER NOT NULL,
+    applied_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (name, version)
+);
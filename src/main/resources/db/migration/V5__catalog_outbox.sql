@@ -0,0 +1,14 @@
+-- Catalog changes appended in the transaction of each write, read back in order by the change feed.
+-- The ID is the offset clients resume from.
+CREATE TABLE catalog_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    kind VARCHAR(16) NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    entity_id VARCHAR(64) NOT NULL,
+    name VARCHAR(255),
+    price_cents INTEGER,
+    quantity_in_stock INTEGER,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_catalog_outbox_created_at ON catalog_outbox (created_at);
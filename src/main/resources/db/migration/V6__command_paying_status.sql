@@ -0,0 +1,2 @@
+-- An order is PAYING while its payment provider is called, outside of any transaction.
+ALTER TABLE command MODIFY status ENUM('PENDING', 'PAYING', 'PAID', 'PAYMENT_FAILED') NOT NULL;
@@ -0,0 +1,8 @@
+-- Written by the application on the primary at every replica check, then read back from each replica:
+-- a replica holding a given beat has applied every commit made before it was written.
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,47 @@
+package be.eafcuccle.TshirtShop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import be.eafcuccle.tshirtshop.dto.ImportReport;
+import be.eafcuccle.tshirtshop.service.ProductImportService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Imports products into an embedded H2 database seeded by the migrations, and checks that invalid rows are
+ * reported without stopping the import.
+ */
+@SpringBootTest(classes = TshirtShopApplication.class, properties = {
+		"spring.datasource.url=jdbc:h2:mem:import;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"
+})
+class ProductImportTests {
+
+	@Autowired
+	private ProductImportService productImportService;
+
+	@Test
+	void outOfRangePriceRejectsOnlyItsRow() throws IOException {
+		String csv = """
+				name,description,price,stock,color,category,brand,size
+				T-Shirt col rond,Coton bio,14.95,20,Noir,Hommes,Nike,M
+				T-Shirt en or,Trop cher,1e12,1,Jaune,Hommes,Nike,M
+				T-Shirt col V,,16.95,15,Blanc,Femmes,Nike,S
+				""";
+
+		ImportReport report = productImportService.importProducts(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.CSV);
+
+		assertEquals(2, report.getImported());
+		assertEquals(1, report.getRejected());
+		assertEquals(2, report.getErrors().get(0).getRow());
+		assertEquals("price: out of range: 1E+12", report.getErrors().get(0).getMessage());
+	}
+}
@@ -0,0 +1,65 @@
+package be.eafcuccle.TshirtShop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks on the migrated H2 schema that the catalog access paths are planned on an index led by the filtered
+ * column. H2 names the index it chose in a comment of the {@code EXPLAIN} output. Unlike MySQL, H2 keeps the
+ * index it created for a foreign key when a later index covers the key, so the brand path may use either.
+ */
+@SpringBootTest(classes = TshirtShopApplication.class, properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"
+})
+class QueryPlanTests {
+
+	private static final Pattern CHOSEN_INDEX = Pattern.compile("/\\* public\\.(\\w+):");
+	private static final String LEADING_COLUMN_SQL = "SELECT column_name FROM information_schema.index_columns"
+			+ " WHERE table_name = 'product' AND index_name = ? AND ordinal_position = 1";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"SELECT product_id FROM product WHERE category_id = 'c' AND product_id > 0 ORDER BY product_id LIMIT 50 | category_id",
+			"SELECT product_id FROM product WHERE brand_id = 1 AND product_id > 0 ORDER BY product_id LIMIT 50 | brand_id",
+			"SELECT product_id FROM product WHERE unit_price_cents BETWEEN 1000 AND 2000 | unit_price_cents",
+			"SELECT product_id FROM product WHERE unit_price_cents > 1000 ORDER BY unit_price_cents, product_id LIMIT 50 | unit_price_cents",
+			"SELECT product_id FROM product WHERE quantity_in_stock > 0 | quantity_in_stock",
+			"SELECT product_id FROM product WHERE product_name > 'M' ORDER BY product_name, product_id LIMIT 50 | product_name",
+			"SELECT product_id FROM product WHERE product_name LIKE 'Ni%' | product_name"
+	})
+	void accessPathUsesAnIndexOnItsColumn(String query, String column) {
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+		Matcher index = CHOSEN_INDEX.matcher(plan);
+		assertTrue(index.find() && !plan.contains("tableScan"), () -> "No index in the plan of " + query + ":\n" + plan);
+		assertEquals(column, jdbcTemplate.queryForObject(LEADING_COLUMN_SQL, String.class, index.group(1)),
+				() -> "Unexpected index in the plan of " + query + ":\n" + plan);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"idx_product_category_id, category_id",
+			"idx_product_brand_id, brand_id",
+			"idx_product_unit_price_cents, unit_price_cents",
+			"idx_product_quantity_in_stock, quantity_in_stock",
+			"idx_product_name, product_name"
+	})
+	void indexIsMigrated(String index, String column) {
+		assertEquals(column, jdbcTemplate.queryForObject(LEADING_COLUMN_SQL, String.class, index));
+	}
+
+}
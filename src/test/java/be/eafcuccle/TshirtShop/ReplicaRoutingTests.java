@@ -0,0 +1,150 @@
+package be.eafcuccle.TshirtShop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import be.eafcuccle.tshirtshop.config.ReplicaRoutingDataSource;
+import be.eafcuccle.tshirtshop.models.Category;
+import be.eafcuccle.tshirtshop.repositories.CategoryRepository;
+import be.eafcuccle.tshirtshop.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes the transactions between two embedded H2 databases standing in for the primary and a replica.
+ * The replica has the migrated schema but none of the seeded products, so a count tells where a query ran,
+ * and one category of its own, which must not reach the second-level cache. Nothing replicates between them,
+ * so the replica's heartbeat is set by hand to place it behind the primary.
+ */
+@SpringBootTest(classes = TshirtShopApplication.class, properties = {
+		"spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+		"tshirtshop.datasource.replica-urls=" + ReplicaRoutingTests.REPLICA_URL + ";IFEXISTS=TRUE",
+		"tshirtshop.datasource.replica-check-interval=PT1H",
+		"tshirtshop.datasource.replica-max-lag=PT1M"
+})
+class ReplicaRoutingTests {
+
+	private static final String REPLICA_CATEGORY = "replica-only";
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	// Created before the context, so that the replica pool, which cannot create it, finds it.
+	private static final DriverManagerDataSource REPLICA = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+
+	static {
+		new ResourceDatabasePopulator(
+				new ClassPathResource("db/migration/V1__baseline.sql"),
+				new ClassPathResource("db/migration/V2__prices_in_cents.sql"),
+				new ClassPathResource("db/migration/V3__query_indexes.sql"),
+				new ClassPathResource("db/migration/V4__seed_datasets.sql"),
+				new ClassPathResource("db/migration/V5__catalog_outbox.sql"),
+				new ClassPathResource("db/migration/V6__command_paying_status.sql"),
+				new ClassPathResource("db/migration/V7__replica_heartbeat.sql")).execute(REPLICA);
+		new JdbcTemplate(REPLICA).update("INSERT INTO category (id, name) VALUES (?, 'Replica')", REPLICA_CATEGORY);
+	}
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private ReplicaRoutingDataSource replicaDataSource;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void replicaPoolIsMetered() {
+		assertTrue(meterRegistry.find("hikaricp.connections").tag("pool", "replica-1").gauge() != null);
+		assertTrue(meterRegistry.find("tshirtshop.datasource.replica.lag").tag("replica", "replica-1").timeGauge() != null);
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplicaWhileItIsHealthy() throws SQLException {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+		assertEquals(3L, (long) readOnly.execute(status -> productRepository.count()), "replicas not allowed");
+		String primaryCategory = readOnly.execute(status -> categoryRepository.findAll().get(0).getId());
+		entityManagerFactory.getCache().evictAll();
+		readOnly.execute(status -> categoryRepository.findById(primaryCategory));
+		assertTrue(entityManagerFactory.getCache().contains(Category.class, primaryCategory), "primary read cached");
+
+		long beat = System.currentTimeMillis() - 1000;
+		setReplicaHeartbeat(beat);
+		replicaDataSource.checkReplicas();
+		assertTrue(jdbcTemplate.queryForObject("SELECT beat_millis FROM replica_heartbeat", Long.class) > beat,
+				"heartbeat written to the primary");
+		assertEquals(beat, replicaDataSource.appliedUntil(), "position of the replica");
+		ReplicaRoutingDataSource.allowReplicas(beat + 1);
+		try {
+			assertEquals(3L, (long) readOnly.execute(status -> productRepository.count()), "replica behind the position");
+		} finally {
+			ReplicaRoutingDataSource.clear();
+		}
+
+		setReplicaHeartbeat(beat - 3_600_000);
+		replicaDataSource.checkReplicas();
+		assertEquals(-1L, replicaDataSource.appliedUntil(), "lagging replica");
+		ReplicaRoutingDataSource.allowReplicas(0);
+		try {
+			assertEquals(3L, (long) readOnly.execute(status -> productRepository.count()), "lagging replica skipped");
+		} finally {
+			ReplicaRoutingDataSource.clear();
+		}
+
+		setReplicaHeartbeat(beat);
+		replicaDataSource.checkReplicas();
+		ReplicaRoutingDataSource.allowReplicas(beat);
+		try {
+			assertEquals(0L, (long) readOnly.execute(status -> productRepository.count()), "read-only on the replica");
+			assertEquals(3L, (long) readWrite.execute(status -> productRepository.count()), "read-write on the primary");
+
+			entityManagerFactory.getCache().evictAll();
+			assertTrue(readOnly.execute(status -> categoryRepository.findById(REPLICA_CATEGORY)).isPresent(), "category of the replica");
+			assertFalse(entityManagerFactory.getCache().contains(Category.class, REPLICA_CATEGORY), "replica read not cached");
+
+			try (Connection connection = REPLICA.getConnection(); Statement statement = connection.createStatement()) {
+				statement.execute("SHUTDOWN");
+			}
+			replicaDataSource.checkReplicas();
+			assertEquals(3L, (long) readOnly.execute(status -> productRepository.count()), "fallback to the primary");
+		} finally {
+			ReplicaRoutingDataSource.clear();
+		}
+	}
+
+	private static void setReplicaHeartbeat(long beat) {
+		new JdbcTemplate(REPLICA).update("UPDATE replica_heartbeat SET beat_millis = ?", beat);
+	}
+
+}
@@ -1,9 +1,20 @@
 package be.eafcuccle.TshirtShop;
 
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+/**
+ * Boots the application on an embedded H2 database in MySQL mode: the Flyway migrations build the schema,
+ * and Hibernate validates the entity mappings against it. The MySQL dialect of production is kept, so that
+ * {@code product_seq} is read as the table MySQL uses for the sequence; H2's own dialect expects a real sequence.
+ */
+@SpringBootTest(classes = TshirtShopApplication.class, properties = {
+		"spring.datasource.url=jdbc:h2:mem:tshirtshop;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"
+})
 class TshirtShopApplicationTests {
 
 	@Test
@@ -0,0 +1,74 @@
+package be.eafcuccle.tshirtshop.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@link TokenBucket}, driven by explicit {@code nanoTime} values.
+ */
+class TokenBucketTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void fullBucketAllowsABurstUpToItsCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 1, 0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, bucket.tryTake(1, 0));
+		}
+		assertEquals(SECOND, bucket.tryTake(1, 0));
+	}
+
+	@Test
+	void refusedRequestTakesNothingAndLearnsItsWait() {
+		TokenBucket bucket = new TokenBucket(10, 2, 0);
+		assertEquals(0, bucket.tryTake(8, 0));
+		assertEquals(2 * SECOND, bucket.tryTake(6, 0));
+		assertEquals(0, bucket.tryTake(2, 0));
+	}
+
+	@Test
+	void bucketRefillsAtItsRateUpToItsCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 2, 0);
+		assertEquals(0, bucket.tryTake(10, 0));
+		assertEquals(0, bucket.tryTake(3, 3 * SECOND / 2));
+		assertEquals(SECOND / 2, bucket.tryTake(1, 3 * SECOND / 2));
+		assertEquals(0, bucket.tryTake(10, 100 * SECOND));
+		assertEquals(SECOND / 2, bucket.tryTake(1, 100 * SECOND));
+	}
+
+	@Test
+	void clockGoingBackwardsAddsNoTokens() {
+		TokenBucket bucket = new TokenBucket(10, 1, 5 * SECOND);
+		assertEquals(0, bucket.tryTake(10, 5 * SECOND));
+		assertEquals(SECOND, bucket.tryTake(1, 4 * SECOND));
+		assertEquals(0, bucket.tryTake(1, 6 * SECOND));
+	}
+
+	@Test
+	void costAboveTheCapacityIsChargedAsTheCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 1, 0);
+		assertEquals(0, bucket.tryTake(50, 0));
+		assertEquals(10 * SECOND, bucket.tryTake(50, 0));
+		bucket.giveBack(50);
+		assertEquals(0, bucket.tryTake(10, 0));
+	}
+
+	@Test
+	void givenBackTokensDoNotExceedTheCapacity() {
+		TokenBucket bucket = new TokenBucket(10, 1, 0);
+		assertEquals(0, bucket.tryTake(4, 0));
+		bucket.giveBack(4);
+		bucket.giveBack(4);
+		assertEquals(0, bucket.tryTake(10, 0));
+		assertEquals(SECOND, bucket.tryTake(1, 0));
+	}
+
+	@Test
+	void capacityAndRateMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0, 0));
+	}
+}
@@ -0,0 +1,56 @@
+package be.eafcuccle.tshirtshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import be.eafcuccle.tshirtshop.TshirtShopApplication;
+import be.eafcuccle.tshirtshop.dto.CartDTO;
+import be.eafcuccle.tshirtshop.dto.CartLineDTO;
+import be.eafcuccle.tshirtshop.repositories.BagRepository;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Expires carts on a manual ticker, and checks that an expired cart is saved before the request for it
+ * reads it back from the database.
+ */
+@SpringBootTest(classes = TshirtShopApplication.class, properties = {
+		"spring.datasource.url=jdbc:h2:mem:carts;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"
+})
+class CartServiceTests {
+
+	private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+	@Autowired
+	private BagRepository bagRepository;
+
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void expiredCartIsReadBackWithItsLines() {
+		AtomicLong nanos = new AtomicLong();
+		CartService cartService = new CartService(bagRepository, productSearchIndex, transactionManager,
+				IDLE_TIMEOUT, 1_000_000, nanos::get, Scheduler.disabledScheduler());
+		String cartId = cartService.create().getId();
+		cartService.addProduct(cartId, 1, 2);
+
+		nanos.addAndGet(IDLE_TIMEOUT.plusSeconds(1).toNanos());
+		CartDTO cart = cartService.find(cartId).orElseThrow();
+
+		assertEquals(1, cart.getLines().size());
+		CartLineDTO line = cart.getLines().get(0);
+		assertEquals(1, line.getProductId());
+		assertEquals(2, line.getQuantity());
+	}
+}
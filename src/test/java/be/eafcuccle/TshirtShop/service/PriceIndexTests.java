@@ -0,0 +1,143 @@
+package be.eafcuccle.tshirtshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@link PriceIndex}: range bounds, ties on the price, keyset cursors and bulk loads.
+ */
+class PriceIndexTests {
+
+	private static PriceIndex index(int... idsAndCents) {
+		PriceIndex index = new PriceIndex();
+		for (int i = 0; i < idsAndCents.length; i += 2) {
+			index.put(idsAndCents[i], idsAndCents[i + 1]);
+		}
+		return index;
+	}
+
+	@Test
+	void emptyIndexFindsNothing() {
+		PriceIndex index = new PriceIndex();
+		assertEquals(0, index.size());
+		assertArrayEquals(new int[0], index.between(0, Integer.MAX_VALUE));
+		assertArrayEquals(new int[0], index.ascending(0, Integer.MAX_VALUE, Long.MIN_VALUE, 10));
+		assertArrayEquals(new int[0], index.descending(0, Integer.MAX_VALUE, Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	void emptyRangesFindNothing() {
+		PriceIndex index = index(1, 1000, 2, 2000, 3, 3000);
+		assertArrayEquals(new int[0], index.between(2001, 2999));
+		assertArrayEquals(new int[0], index.between(3000, 1000));
+		assertArrayEquals(new int[0], index.between(3001, Integer.MAX_VALUE));
+		assertArrayEquals(new int[0], index.between(Integer.MIN_VALUE, 999));
+		assertArrayEquals(new int[0], index.ascending(2001, 2999, Long.MIN_VALUE, 10));
+		assertArrayEquals(new int[0], index.descending(3000, 1000, Long.MAX_VALUE, 10));
+		assertArrayEquals(new int[0], index.ascending(0, Integer.MAX_VALUE, Long.MIN_VALUE, 0));
+	}
+
+	@Test
+	void boundsAreInclusive() {
+		PriceIndex index = index(1, 1000, 2, 2000, 3, 3000);
+		assertArrayEquals(new int[]{1, 2}, index.between(1000, 2000));
+		assertArrayEquals(new int[]{2}, index.between(2000, 2000));
+		assertArrayEquals(new int[]{3, 2}, index.descending(2000, 3000, Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	void highestBoundIncludesTheMostExpensiveProducts() {
+		PriceIndex index = index(1, 1000, 2, Integer.MAX_VALUE);
+		assertArrayEquals(new int[]{1, 2}, index.between(0, Integer.MAX_VALUE));
+		assertArrayEquals(new int[]{2}, index.between(1001, Integer.MAX_VALUE));
+		assertArrayEquals(new int[]{1, 2}, index.ascending(0, Integer.MAX_VALUE, Long.MIN_VALUE, 10));
+		assertArrayEquals(new int[]{2, 1}, index.descending(0, Integer.MAX_VALUE, Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	void equalPricesAreOrderedById() {
+		PriceIndex index = index(7, 1500, 3, 1500, 5, 1500, 1, 900);
+		assertArrayEquals(new int[]{3, 5, 7}, index.between(1500, 1500));
+		assertArrayEquals(new int[]{1, 3, 5, 7}, index.ascending(0, 2000, Long.MIN_VALUE, 10));
+		assertArrayEquals(new int[]{7, 5, 3, 1}, index.descending(0, 2000, Long.MAX_VALUE, 10));
+	}
+
+	@Test
+	void cursorsPageThroughEqualPrices() {
+		PriceIndex index = index(7, 1500, 3, 1500, 5, 1500, 1, 900);
+		int[] first = index.ascending(1500, 1500, Long.MIN_VALUE, 2);
+		assertArrayEquals(new int[]{3, 5}, first);
+		assertArrayEquals(new int[]{7}, index.ascending(1500, 1500, index.keyOf(first[1]), 2));
+		int[] last = index.descending(1500, 1500, Long.MAX_VALUE, 2);
+		assertArrayEquals(new int[]{7, 5}, last);
+		assertArrayEquals(new int[]{3}, index.descending(1500, 1500, index.keyOf(last[1]), 2));
+	}
+
+	@Test
+	void cursorsAtTheEdgesEndThePages() {
+		PriceIndex index = index(1, 1000, 2, 2000, 3, 3000);
+		assertArrayEquals(new int[0], index.ascending(0, Integer.MAX_VALUE, index.keyOf(3), 10));
+		assertArrayEquals(new int[0], index.descending(0, Integer.MAX_VALUE, index.keyOf(1), 10));
+		assertArrayEquals(new int[]{2, 3}, index.ascending(0, Integer.MAX_VALUE, index.keyOf(1), 10));
+		assertArrayEquals(new int[]{2, 1}, index.descending(0, Integer.MAX_VALUE, index.keyOf(3), 10));
+	}
+
+	@Test
+	void cursorsOutsideTheRangeAreClamped() {
+		PriceIndex index = index(1, 1000, 2, 2000, 3, 3000, 4, 4000);
+		assertArrayEquals(new int[]{2, 3}, index.ascending(2000, 3000, index.keyOf(1), 10));
+		assertArrayEquals(new int[0], index.ascending(2000, 3000, index.keyOf(4), 10));
+		assertArrayEquals(new int[]{3, 2}, index.descending(2000, 3000, index.keyOf(4), 10));
+		assertArrayEquals(new int[0], index.descending(2000, 3000, index.keyOf(1), 10));
+	}
+
+	@Test
+	void putMovesAProductToItsNewPrice() {
+		PriceIndex index = index(1, 1000, 2, 2000);
+		index.put(1, 3000);
+		assertEquals(2, index.size());
+		assertArrayEquals(new int[]{2, 1}, index.between(0, Integer.MAX_VALUE));
+		assertEquals(PriceIndex.key(3000, 1), index.keyOf(1));
+	}
+
+	@Test
+	void putAllReplacesExistingProducts() {
+		PriceIndex index = index(1, 1000, 2, 2000, 3, 3000);
+		index.putAll(new int[]{3, 4, 1}, new int[]{500, 2500, 1000});
+		assertEquals(4, index.size());
+		assertArrayEquals(new int[]{3, 1, 2, 4}, index.between(0, Integer.MAX_VALUE));
+		assertEquals(PriceIndex.key(500, 3), index.keyOf(3));
+		index.remove(3);
+		assertArrayEquals(new int[]{1, 2, 4}, index.between(0, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void putAllGrowsPastTheInitialCapacity() {
+		PriceIndex index = index(0, 0);
+		int[] ids = new int[100];
+		int[] cents = new int[100];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = ids.length - i;
+			cents[i] = 100;
+		}
+		index.putAll(ids, cents);
+		index.put(101, 50);
+		assertEquals(102, index.size());
+		int[] all = index.between(0, Integer.MAX_VALUE);
+		assertEquals(0, all[0]);
+		assertEquals(101, all[1]);
+		assertEquals(1, all[2]);
+		assertEquals(100, all[101]);
+	}
+
+	@Test
+	void removeAndKeyOfIgnoreOrRejectUnknownProducts() {
+		PriceIndex index = index(1, 1000);
+		index.remove(2);
+		assertEquals(1, index.size());
+		assertThrows(IllegalArgumentException.class, () -> index.keyOf(2));
+	}
+}